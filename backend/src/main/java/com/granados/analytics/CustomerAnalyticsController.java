@@ -0,0 +1,40 @@
+package com.granados.analytics;
+
+import com.granados.customer.Gender;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Locale;
+
+@RestController
+@RequestMapping("api/v1/customers/analytics")
+public class CustomerAnalyticsController {
+
+    private final CustomerAnalyticsService customerAnalyticsService;
+
+    public CustomerAnalyticsController(CustomerAnalyticsService customerAnalyticsService) {
+        this.customerAnalyticsService = customerAnalyticsService;
+    }
+
+    @GetMapping
+    public CustomerAnalyticsResponse query(
+            @RequestParam(value = "minAge", required = false) Integer minAge,
+            @RequestParam(value = "maxAge", required = false) Integer maxAge,
+            @RequestParam(value = "gender", required = false) Gender gender,
+            @RequestParam(value = "domain", required = false) String domain,
+            @RequestParam(value = "groupBy", defaultValue = "NONE") GroupBy groupBy,
+            @RequestParam(value = "ageBucket", defaultValue = "10") int ageBucket,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        return customerAnalyticsService.query(new CustomerAnalyticsQuery(
+                minAge,
+                maxAge,
+                gender,
+                domain == null ? null : domain.toLowerCase(Locale.ROOT),
+                groupBy,
+                ageBucket,
+                limit
+        ));
+    }
+}
@@ -0,0 +1,14 @@
+package com.granados.analytics;
+
+import com.granados.customer.Gender;
+
+public record CustomerAnalyticsQuery(
+        Integer minAge,
+        Integer maxAge,
+        Gender gender,
+        String domain,
+        GroupBy groupBy,
+        int ageBucket,
+        int limit
+) {
+}
@@ -0,0 +1,15 @@
+package com.granados.analytics;
+
+import java.time.Instant;
+import java.util.List;
+
+public record CustomerAnalyticsResponse(
+        long matched,
+        List<Group> groups,
+        int snapshotSize,
+        Instant refreshedAt
+) {
+
+    public record Group(String key, long count) {
+    }
+}
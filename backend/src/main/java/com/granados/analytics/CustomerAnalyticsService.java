@@ -0,0 +1,116 @@
+package com.granados.analytics;
+
+import com.granados.customer.CustomerChangeEvent;
+import com.granados.exception.RequestValidationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Answers counts and distributions from an in-process {@link CustomerSnapshot}
+ * instead of the OLTP table.
+ * <p>
+ * Each refresh reloads only the customers changed since the last one (from
+ * {@link CustomerChangeEvent}s) plus rows with ids past the snapshot's last
+ * id, which covers bulk loads. Changes made outside this instance are picked up
+ * by a periodic full rebuild.
+ */
+@Service
+public class CustomerAnalyticsService {
+
+    static final int MAX_GROUPS = 1000;
+
+    private final CustomerSnapshotLoader loader;
+    private final long fullRebuildIntervalNanos;
+    private final Set<Integer> dirtyIds = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean(true);
+    private volatile CustomerSnapshot snapshot = CustomerSnapshot.EMPTY;
+    private long lastRebuild;
+
+    public CustomerAnalyticsService(CustomerSnapshotLoader loader,
+                                    @Value("${analytics.full-rebuild-interval:PT10M}") Duration fullRebuildInterval) {
+        this.loader = loader;
+        this.fullRebuildIntervalNanos = fullRebuildInterval.toNanos();
+    }
+
+    public CustomerAnalyticsResponse query(CustomerAnalyticsQuery query) {
+        if (query.ageBucket() < 1) {
+            throw new RequestValidationException("ageBucket must be greater than 0");
+        }
+        if (query.limit() < 1 || query.limit() > MAX_GROUPS) {
+            throw new RequestValidationException(
+                    "limit must be between 1 and %s".formatted(MAX_GROUPS));
+        }
+        return snapshot.query(query);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChange(CustomerChangeEvent event) {
+        if (event.operation() == CustomerChangeEvent.Operation.RESET) {
+            rebuildRequested.set(true);
+        } else {
+            dirtyIds.addAll(event.customerIds());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.refresh-interval:PT5S}")
+    public synchronized void refresh() {
+        if (rebuildRequested.getAndSet(false)
+                || System.nanoTime() - lastRebuild > fullRebuildIntervalNanos) {
+            rebuild();
+            return;
+        }
+
+        int[] changed = drainDirtyIds();
+        try {
+            CustomerSnapshot current = snapshot;
+            CustomerColumns upserts = new CustomerColumns(changed.length);
+            loader.loadByIds(changed, upserts);
+
+            Set<Integer> removed = new HashSet<>(changed.length * 2);
+            Arrays.stream(changed).forEach(removed::add);
+            for (int i = 0; i < upserts.size; i++) {
+                removed.remove(upserts.ids[i]);
+            }
+
+            CustomerColumns tail = new CustomerColumns(16);
+            loader.loadAfter(current.maxId(), tail);
+
+            if (upserts.size > 0 || tail.size > 0 || !removed.isEmpty()) {
+                snapshot = current.apply(upserts, removed).apply(tail, Set.of());
+            }
+        } catch (RuntimeException e) {
+            Arrays.stream(changed).forEach(dirtyIds::add);
+            throw e;
+        }
+    }
+
+    private void rebuild() {
+        dirtyIds.clear();
+        try {
+            CustomerColumns columns = new CustomerColumns(Math.max(snapshot.size(), 1024));
+            loader.loadAfter(0, columns);
+            snapshot = CustomerSnapshot.of(columns);
+            lastRebuild = System.nanoTime();
+        } catch (RuntimeException e) {
+            rebuildRequested.set(true);
+            throw e;
+        }
+    }
+
+    private int[] drainDirtyIds() {
+        int[] changed = dirtyIds.stream().mapToInt(Integer::intValue).toArray();
+        for (int id : changed) {
+            dirtyIds.remove(id);
+        }
+        return changed;
+    }
+}
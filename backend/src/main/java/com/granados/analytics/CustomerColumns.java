@@ -0,0 +1,54 @@
+package com.granados.analytics;
+
+import com.granados.customer.Gender;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Growable column buffers filled while loading customers. Email domains are
+ * dictionary encoded as rows arrive, so a load never holds one string per row.
+ */
+final class CustomerColumns {
+
+    int size;
+    int[] ids;
+    int[] ages;
+    byte[] genders;
+    int[] domainCodes;
+    final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> codes = new HashMap<>();
+
+    CustomerColumns(int capacity) {
+        capacity = Math.max(capacity, 16);
+        ids = new int[capacity];
+        ages = new int[capacity];
+        genders = new byte[capacity];
+        domainCodes = new int[capacity];
+    }
+
+    void add(int id, int age, String gender, String domain) {
+        if (size == ids.length) {
+            int capacity = size + (size >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            genders = Arrays.copyOf(genders, capacity);
+            domainCodes = Arrays.copyOf(domainCodes, capacity);
+        }
+        ids[size] = id;
+        ages[size] = age;
+        genders[size] = (byte) Gender.valueOf(gender).ordinal();
+        domainCodes[size] = codes.computeIfAbsent(domain, key -> {
+            dictionary.add(key);
+            return dictionary.size() - 1;
+        });
+        size++;
+    }
+
+    int lastId() {
+        return size == 0 ? 0 : ids[size - 1];
+    }
+}
@@ -0,0 +1,243 @@
+package com.granados.analytics;
+
+import com.granados.customer.Gender;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable columnar copy of the customer table: one primitive array per
+ * column, rows sorted by id, email domains dictionary encoded. Refreshes build
+ * a new snapshot, so queries never see a partially applied change and need no
+ * locking.
+ */
+final class CustomerSnapshot {
+
+    static final CustomerSnapshot EMPTY = new CustomerSnapshot(
+            0, new int[0], new int[0], new byte[0], new int[0], List.of(), 0, Instant.EPOCH);
+
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    private static final Gender[] GENDERS = Gender.values();
+
+    private final int size;
+    private final int[] ids;
+    private final int[] ages;
+    private final byte[] genders;
+    private final int[] domainCodes;
+    private final List<String> dictionary;
+    private final Map<String, Integer> codes;
+    private final int maxAge;
+    private final Instant refreshedAt;
+
+    private CustomerSnapshot(int size, int[] ids, int[] ages, byte[] genders, int[] domainCodes,
+                             List<String> dictionary, int maxAge, Instant refreshedAt) {
+        this.size = size;
+        this.ids = ids;
+        this.ages = ages;
+        this.genders = genders;
+        this.domainCodes = domainCodes;
+        this.dictionary = dictionary;
+        this.maxAge = maxAge;
+        this.refreshedAt = refreshedAt;
+        this.codes = new HashMap<>(dictionary.size() * 2);
+        for (int code = 0; code < dictionary.size(); code++) {
+            codes.put(dictionary.get(code), code);
+        }
+    }
+
+    /**
+     * Builds a snapshot from columns loaded in id order.
+     */
+    static CustomerSnapshot of(CustomerColumns columns) {
+        int size = columns.size;
+        return new CustomerSnapshot(
+                size,
+                Arrays.copyOf(columns.ids, size),
+                Arrays.copyOf(columns.ages, size),
+                Arrays.copyOf(columns.genders, size),
+                Arrays.copyOf(columns.domainCodes, size),
+                List.copyOf(columns.dictionary),
+                Arrays.stream(columns.ages, 0, size).max().orElse(0),
+                Instant.now()
+        );
+    }
+
+    /**
+     * Returns a new snapshot with the loaded rows inserted or replaced and the
+     * removed ids dropped. Both this snapshot and {@code upserts} are in id
+     * order, so this is a single merge pass.
+     */
+    CustomerSnapshot apply(CustomerColumns upserts, Set<Integer> removed) {
+        List<String> mergedDictionary = new ArrayList<>(dictionary);
+        Map<String, Integer> mergedCodes = new HashMap<>(codes);
+        int[] remap = new int[upserts.dictionary.size()];
+        for (int code = 0; code < remap.length; code++) {
+            remap[code] = mergedCodes.computeIfAbsent(upserts.dictionary.get(code), domain -> {
+                mergedDictionary.add(domain);
+                return mergedDictionary.size() - 1;
+            });
+        }
+
+        int capacity = size + upserts.size;
+        int[] newIds = new int[capacity];
+        int[] newAges = new int[capacity];
+        byte[] newGenders = new byte[capacity];
+        int[] newDomainCodes = new int[capacity];
+        int newMaxAge = 0;
+
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size || j < upserts.size) {
+            if (j < upserts.size && (i == size || upserts.ids[j] <= ids[i])) {
+                if (i < size && ids[i] == upserts.ids[j]) {
+                    i++;
+                }
+                newIds[n] = upserts.ids[j];
+                newAges[n] = upserts.ages[j];
+                newGenders[n] = upserts.genders[j];
+                newDomainCodes[n] = remap[upserts.domainCodes[j]];
+                j++;
+            } else {
+                if (removed.contains(ids[i])) {
+                    i++;
+                    continue;
+                }
+                newIds[n] = ids[i];
+                newAges[n] = ages[i];
+                newGenders[n] = genders[i];
+                newDomainCodes[n] = domainCodes[i];
+                i++;
+            }
+            newMaxAge = Math.max(newMaxAge, newAges[n]);
+            n++;
+        }
+
+        return new CustomerSnapshot(
+                n,
+                Arrays.copyOf(newIds, n),
+                Arrays.copyOf(newAges, n),
+                Arrays.copyOf(newGenders, n),
+                Arrays.copyOf(newDomainCodes, n),
+                List.copyOf(mergedDictionary),
+                newMaxAge,
+                Instant.now()
+        );
+    }
+
+    int size() {
+        return size;
+    }
+
+    int maxId() {
+        return size == 0 ? 0 : ids[size - 1];
+    }
+
+    CustomerAnalyticsResponse query(CustomerAnalyticsQuery query) {
+        int domain = -1;
+        if (query.domain() != null) {
+            Integer code = codes.get(query.domain());
+            if (code == null) {
+                return new CustomerAnalyticsResponse(0, List.of(), size, refreshedAt);
+            }
+            domain = code;
+        }
+
+        Filter filter = new Filter(
+                query.minAge() == null ? Integer.MIN_VALUE : query.minAge(),
+                query.maxAge() == null ? Integer.MAX_VALUE : query.maxAge(),
+                query.gender() == null ? -1 : query.gender().ordinal(),
+                domain,
+                query.groupBy(),
+                query.ageBucket()
+        );
+        int groups = switch (query.groupBy()) {
+            case NONE -> 1;
+            case GENDER -> GENDERS.length;
+            case AGE -> Math.max(maxAge, 0) / query.ageBucket() + 1;
+            case DOMAIN -> dictionary.size();
+        };
+
+        long[] counts;
+        if (size < PARALLEL_THRESHOLD) {
+            counts = count(filter, groups, 0, size);
+        } else {
+            int chunks = ForkJoinPool.getCommonPoolParallelism() * 2;
+            int chunkSize = (size + chunks - 1) / chunks;
+            counts = IntStream.range(0, chunks)
+                    .parallel()
+                    .mapToObj(chunk -> count(filter, groups,
+                            chunk * chunkSize, Math.min(size, (chunk + 1) * chunkSize)))
+                    .reduce(new long[groups], CustomerSnapshot::sum);
+        }
+
+        long matched = 0;
+        List<CustomerAnalyticsResponse.Group> result = new ArrayList<>();
+        for (int group = 0; group < groups; group++) {
+            matched += counts[group];
+            if (counts[group] > 0 && query.groupBy() != GroupBy.NONE) {
+                result.add(new CustomerAnalyticsResponse.Group(groupKey(query, group), counts[group]));
+            }
+        }
+        result.sort(Comparator.comparingLong(CustomerAnalyticsResponse.Group::count).reversed());
+
+        return new CustomerAnalyticsResponse(
+                matched,
+                result.size() > query.limit() ? List.copyOf(result.subList(0, query.limit())) : result,
+                size,
+                refreshedAt
+        );
+    }
+
+    private long[] count(Filter filter, int groups, int from, int to) {
+        long[] counts = new long[groups];
+        for (int i = from; i < to; i++) {
+            int age = ages[i];
+            if (age < filter.minAge || age > filter.maxAge
+                    || (filter.gender >= 0 && genders[i] != filter.gender)
+                    || (filter.domain >= 0 && domainCodes[i] != filter.domain)) {
+                continue;
+            }
+            switch (filter.groupBy) {
+                case NONE -> counts[0]++;
+                case GENDER -> counts[genders[i]]++;
+                case AGE -> counts[Math.max(age, 0) / filter.ageBucket]++;
+                case DOMAIN -> counts[domainCodes[i]]++;
+            }
+        }
+        return counts;
+    }
+
+    private String groupKey(CustomerAnalyticsQuery query, int group) {
+        return switch (query.groupBy()) {
+            case NONE -> "all";
+            case GENDER -> GENDERS[group].name();
+            case AGE -> {
+                int from = group * query.ageBucket();
+                yield query.ageBucket() == 1
+                        ? String.valueOf(from)
+                        : from + "-" + (from + query.ageBucket() - 1);
+            }
+            case DOMAIN -> dictionary.get(group);
+        };
+    }
+
+    private static long[] sum(long[] left, long[] right) {
+        long[] sum = new long[left.length];
+        for (int i = 0; i < left.length; i++) {
+            sum[i] = left[i] + right[i];
+        }
+        return sum;
+    }
+
+    private record Filter(int minAge, int maxAge, int gender, int domain, GroupBy groupBy, int ageBucket) {
+    }
+}
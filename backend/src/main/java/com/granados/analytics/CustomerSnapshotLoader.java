@@ -0,0 +1,76 @@
+package com.granados.analytics;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+
+/**
+ * Reads only the columns the snapshot needs, with the email already reduced
+ * to its domain by the database. Reads run in read-only transactions, so they
+ * go to the replica when one is configured.
+ */
+@Repository
+public class CustomerSnapshotLoader {
+
+    static final int BATCH_SIZE = 50_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CustomerSnapshotLoader(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Appends every customer with an id greater than {@code afterId}, in id
+     * order.
+     */
+    @Transactional(readOnly = true)
+    public void loadAfter(int afterId, CustomerColumns into) {
+        var sql = """
+                SELECT id, age, gender, lower(split_part(email, '@', 2))
+                FROM customer
+                WHERE id > ?
+                ORDER BY id
+                LIMIT ?
+                """;
+
+        int lastId = afterId;
+        while (true) {
+            int before = into.size;
+            jdbcTemplate.query(sql, rowHandler(into), lastId, BATCH_SIZE);
+            if (into.size - before < BATCH_SIZE) {
+                return;
+            }
+            lastId = into.lastId();
+        }
+    }
+
+    /**
+     * Appends the customers with the given ids that still exist, in id order.
+     */
+    @Transactional(readOnly = true)
+    public void loadByIds(int[] customerIds, CustomerColumns into) {
+        var sql = """
+                SELECT id, age, gender, lower(split_part(email, '@', 2))
+                FROM customer
+                WHERE id = ANY(?)
+                ORDER BY id
+                """;
+
+        int[] sorted = customerIds.clone();
+        Arrays.sort(sorted);
+        for (int from = 0; from < sorted.length; from += BATCH_SIZE) {
+            Integer[] batch = Arrays.stream(sorted, from, Math.min(from + BATCH_SIZE, sorted.length))
+                    .boxed()
+                    .toArray(Integer[]::new);
+            jdbcTemplate.query(sql, rowHandler(into), (Object) batch);
+        }
+    }
+
+    private static RowCallbackHandler rowHandler(CustomerColumns into) {
+        return rs -> into.add(rs.getInt(1), rs.getInt(2), rs.getString(3), rs.getString(4));
+    }
+}
@@ -0,0 +1,5 @@
+package com.granados.analytics;
+
+public enum GroupBy {
+    NONE, GENDER, AGE, DOMAIN
+}
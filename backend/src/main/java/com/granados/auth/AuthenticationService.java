@@ -33,7 +33,8 @@ public class AuthenticationService {
         Customer principal = (Customer) authentication.getPrincipal();
         CustomerDTO customerDTO = customerDTOMapper.apply(principal);
 
-        String token = jwtUtil.issueToken(customerDTO.username(), customerDTO.roles());
+        String token = jwtUtil.issueToken(
+                customerDTO.username(), customerDTO.id(), principal.getVersion(), customerDTO.roles());
 
         return new AuthenticationResponse(token, customerDTO);
     }
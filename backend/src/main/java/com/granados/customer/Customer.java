@@ -1,15 +1,22 @@
 package com.granados.customer;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 @Entity
+@DynamicUpdate
 @Table(
         name = "customer",
         uniqueConstraints = {
@@ -21,11 +28,21 @@ import java.util.Objects;
 )
 public class Customer implements UserDetails {
 
+    /**
+     * Ids come from customer_id_seq, which increments by 50: one nextval
+     * reserves the 50 ids starting at the returned value (pooled-lo), so
+     * inserts through JPA only hit the sequence once per 50 customers. The
+     * JDBC inserts take their ids the same way, see {@link CustomerIdPool}.
+     */
     @Id
-    @SequenceGenerator(
+    @GenericGenerator(
             name = "customer_id_seq",
-            sequenceName = "customer_id_seq",
-            allocationSize = 1
+            strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                    @Parameter(name = "sequence_name", value = "customer_id_seq"),
+                    @Parameter(name = "increment_size", value = "50"),
+                    @Parameter(name = "optimizer", value = "pooled-lo")
+            }
     )
     @GeneratedValue(
             strategy = GenerationType.SEQUENCE,
@@ -57,6 +74,24 @@ public class Customer implements UserDetails {
     @Column(nullable = false)
     private String password;
 
+    /**
+     * Bumped by the database whenever the row changes, see
+     * V10__Add_Customer_Version_And_Change_Count.sql.
+     */
+    @Column(
+            nullable = false,
+            insertable = false,
+            updatable = false
+    )
+    private long version;
+
+    /**
+     * Columns changed through the setters since the customer was loaded,
+     * used to update only what actually changed.
+     */
+    @Transient
+    private final Set<String> modifiedFields = new LinkedHashSet<>();
+
     public Customer() {
     }
 
@@ -101,6 +136,7 @@ public class Customer implements UserDetails {
 
     public void setName(String name) {
         this.name = name;
+        this.modifiedFields.add("name");
     }
 
     public String getEmail() {
@@ -109,6 +145,7 @@ public class Customer implements UserDetails {
 
     public void setEmail(String email) {
         this.email = email;
+        this.modifiedFields.add("email");
     }
 
     public Integer getAge() {
@@ -117,6 +154,7 @@ public class Customer implements UserDetails {
 
     public void setAge(Integer age) {
         this.age = age;
+        this.modifiedFields.add("age");
     }
 
     public Gender getGender() {
@@ -125,6 +163,23 @@ public class Customer implements UserDetails {
 
     public void setGender(Gender gender) {
         this.gender = gender;
+        this.modifiedFields.add("gender");
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    void setVersion(long version) {
+        this.version = version;
+    }
+
+    public Set<String> getModifiedFields() {
+        return Collections.unmodifiableSet(modifiedFields);
+    }
+
+    public void clearModifiedFields() {
+        modifiedFields.clear();
     }
 
     @Override
@@ -0,0 +1,13 @@
+package com.granados.customer;
+
+public record CustomerBatchResult(
+        int index,
+        String email,
+        Status status,
+        String message
+) {
+
+    public enum Status {
+        CREATED, DUPLICATE, INVALID
+    }
+}
@@ -0,0 +1,131 @@
+package com.granados.customer;
+
+import com.granados.exception.RequestValidationException;
+import com.granados.security.BatchPasswordEncoder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.granados.customer.CustomerBatchResult.Status.CREATED;
+import static com.granados.customer.CustomerBatchResult.Status.DUPLICATE;
+import static com.granados.customer.CustomerBatchResult.Status.INVALID;
+
+@Service
+public class CustomerBatchService {
+
+    static final int MAX_BATCH_SIZE = 1000;
+
+    private final CustomerDao customerDAO;
+    private final BatchPasswordEncoder batchPasswordEncoder;
+
+    public CustomerBatchService(@Qualifier("jdbc") CustomerDao customerDAO,
+                                BatchPasswordEncoder batchPasswordEncoder) {
+        this.customerDAO = customerDAO;
+        this.batchPasswordEncoder = batchPasswordEncoder;
+    }
+
+    public List<CustomerBatchResult> registerCustomers(List<CustomerRegistrationRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new RequestValidationException("at least one customer is required");
+        }
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new RequestValidationException(
+                    "at most %s customers can be registered at once".formatted(MAX_BATCH_SIZE));
+        }
+
+        CustomerBatchResult[] results = new CustomerBatchResult[requests.size()];
+
+        // keep the first valid occurrence of every email in the batch
+        Map<String, Integer> candidates = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            CustomerRegistrationRequest request = requests.get(i);
+            if (!isValid(request)) {
+                results[i] = result(i, request, INVALID, "name, email, password, age and gender are required");
+            } else if (candidates.putIfAbsent(request.email(), i) != null) {
+                results[i] = result(i, request, DUPLICATE, "email repeated in batch");
+            }
+        }
+
+        Set<String> existingEmails = candidates.isEmpty()
+                ? Set.of()
+                : customerDAO.selectExistingEmails(candidates.keySet());
+
+        List<Integer> toInsert = candidates.entrySet()
+                .stream()
+                .filter(candidate -> {
+                    if (existingEmails.contains(candidate.getKey())) {
+                        int index = candidate.getValue();
+                        results[index] = result(index, requests.get(index), DUPLICATE, "email already taken");
+                        return false;
+                    }
+                    return true;
+                })
+                .map(Map.Entry::getValue)
+                .sorted()
+                .toList();
+
+        if (!toInsert.isEmpty()) {
+            insert(requests, toInsert, results);
+        }
+
+        return Arrays.asList(results);
+    }
+
+    private void insert(List<CustomerRegistrationRequest> requests,
+                        List<Integer> toInsert,
+                        CustomerBatchResult[] results) {
+        List<String> hashes = batchPasswordEncoder.encodeAll(
+                toInsert.stream()
+                        .map(index -> requests.get(index).password())
+                        .toList()
+        );
+
+        List<Customer> customers = new ArrayList<>(toInsert.size());
+        for (int i = 0; i < toInsert.size(); i++) {
+            CustomerRegistrationRequest request = requests.get(toInsert.get(i));
+            customers.add(new Customer(
+                    request.name(),
+                    request.email(),
+                    hashes.get(i),
+                    request.age(),
+                    request.gender()
+            ));
+        }
+
+        // a zero count means a concurrent registration took the email after the check
+        int[] counts = customerDAO.insertCustomers(customers);
+        for (int i = 0; i < toInsert.size(); i++) {
+            int index = toInsert.get(i);
+            results[index] = counts[i] == 0
+                    ? result(index, requests.get(index), DUPLICATE, "email already taken")
+                    : result(index, requests.get(index), CREATED, null);
+        }
+    }
+
+    private static boolean isValid(CustomerRegistrationRequest request) {
+        return request != null
+                && request.name() != null && !request.name().isBlank()
+                && request.email() != null && !request.email().isBlank()
+                && request.password() != null && !request.password().isEmpty()
+                && request.age() != null
+                && request.gender() != null;
+    }
+
+    private static CustomerBatchResult result(int index,
+                                              CustomerRegistrationRequest request,
+                                              CustomerBatchResult.Status status,
+                                              String message) {
+        return new CustomerBatchResult(
+                index,
+                request == null ? null : request.email(),
+                status,
+                message
+        );
+    }
+}
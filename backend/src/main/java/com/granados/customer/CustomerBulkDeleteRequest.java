@@ -0,0 +1,8 @@
+package com.granados.customer;
+
+import java.util.List;
+
+public record CustomerBulkDeleteRequest(
+        List<Integer> ids
+) {
+}
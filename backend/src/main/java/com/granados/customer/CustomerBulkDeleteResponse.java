@@ -0,0 +1,9 @@
+package com.granados.customer;
+
+import java.util.List;
+
+public record CustomerBulkDeleteResponse(
+        List<Integer> deleted,
+        List<Integer> notFound
+) {
+}
@@ -0,0 +1,30 @@
+package com.granados.customer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Reads the number of statements that changed customer, counted by a trigger
+ * over a few shards, see V10__Add_Customer_Version_And_Change_Count.sql. It
+ * grows with every committed change, so it tells whether the table changed
+ * without reading it.
+ */
+@Repository
+public class CustomerChangeCountJDBCDataAccessService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CustomerChangeCountJDBCDataAccessService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long selectChangeCount() {
+        var sql = """
+                SELECT COALESCE(sum(changes), 0)
+                FROM customer_change_count
+                """;
+
+        Long changes = jdbcTemplate.queryForObject(sql, Long.class);
+        return changes == null ? 0 : changes;
+    }
+}
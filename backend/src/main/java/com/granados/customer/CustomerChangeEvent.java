@@ -0,0 +1,42 @@
+package com.granados.customer;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published by {@link CustomerService} after customers are created, updated
+ * or deleted. {@link Operation#RESET} means any customer may have changed and
+ * consumers should drop whatever they derived from the table.
+ * <p>
+ * Bulk loads (batch registration and csv import) are not published by the
+ * service; their ids arrive through {@link CustomerChangeListener}, which
+ * republishes the changes committed through every instance, this one
+ * included, outside of any transaction. Consumers must therefore handle the
+ * same change more than once. RESET only follows a TRUNCATE or a gap in the
+ * feed.
+ */
+public record CustomerChangeEvent(
+        Operation operation,
+        Collection<Integer> customerIds
+) {
+
+    public enum Operation {
+        CREATED, UPDATED, DELETED, RESET
+    }
+
+    public static CustomerChangeEvent created(Integer customerId) {
+        return new CustomerChangeEvent(Operation.CREATED, List.of(customerId));
+    }
+
+    public static CustomerChangeEvent updated(Integer customerId) {
+        return new CustomerChangeEvent(Operation.UPDATED, List.of(customerId));
+    }
+
+    public static CustomerChangeEvent deleted(Collection<Integer> customerIds) {
+        return new CustomerChangeEvent(Operation.DELETED, List.copyOf(customerIds));
+    }
+
+    public static CustomerChangeEvent reset() {
+        return new CustomerChangeEvent(Operation.RESET, List.of());
+    }
+}
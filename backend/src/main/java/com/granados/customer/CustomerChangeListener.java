@@ -0,0 +1,198 @@
+package com.granados.customer;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Follows the customer_change channel filled by the V9 triggers, so changes
+ * made through any instance reach this one as {@link CustomerChangeEvent}s.
+ * <p>
+ * Uses one dedicated connection to the primary, outside the pool, which sits
+ * idle in {@code getNotifications} between changes. Notifications sent while
+ * it is disconnected are lost, so every reconnect publishes a RESET, as does
+ * a heartbeat that finds the connection dead.
+ */
+@Component
+@ConditionalOnProperty(prefix = "customer.change-feed", name = "enabled", matchIfMissing = true)
+public class CustomerChangeListener implements SmartLifecycle {
+
+    static final String CHANNEL = "customer_change";
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerChangeListener.class);
+
+    private static final Duration MAX_RECONNECT_DELAY = Duration.ofSeconds(30);
+
+    private final DataSource listenerDataSource;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration pollInterval;
+    private final Duration heartbeatInterval;
+
+    private volatile boolean running;
+    private volatile boolean listening;
+    private Thread thread;
+
+    @Autowired
+    public CustomerChangeListener(DataSourceProperties dataSourceProperties,
+                                  ApplicationEventPublisher eventPublisher,
+                                  @Value("${customer.change-feed.poll-interval:PT1S}") Duration pollInterval,
+                                  @Value("${customer.change-feed.heartbeat-interval:PT30S}") Duration heartbeatInterval) {
+        this(dataSourceProperties.initializeDataSourceBuilder()
+                        .type(SimpleDriverDataSource.class)
+                        .build(),
+                eventPublisher, pollInterval, heartbeatInterval);
+    }
+
+    CustomerChangeListener(DataSource listenerDataSource,
+                           ApplicationEventPublisher eventPublisher,
+                           Duration pollInterval,
+                           Duration heartbeatInterval) {
+        this.listenerDataSource = listenerDataSource;
+        this.eventPublisher = eventPublisher;
+        this.pollInterval = pollInterval;
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        thread = new Thread(this::run, "customer-change-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(pollInterval.toMillis() * 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * True once LISTEN is in place, until the connection is lost.
+     */
+    boolean isListening() {
+        return listening;
+    }
+
+    private void run() {
+        boolean connectedBefore = false;
+        long reconnectDelay = pollInterval.toMillis();
+        while (running) {
+            try (Connection connection = listenerDataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                listening = true;
+                if (connectedBefore) {
+                    log.info("customer change listener reconnected, resetting consumers");
+                    publish(CustomerChangeEvent.reset());
+                }
+                connectedBefore = true;
+                reconnectDelay = pollInterval.toMillis();
+                listen(connection);
+            } catch (SQLException e) {
+                listening = false;
+                if (!running) {
+                    return;
+                }
+                log.warn("customer change listener lost its connection, retrying in {} ms", reconnectDelay, e);
+                try {
+                    Thread.sleep(reconnectDelay);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                reconnectDelay = Math.min(reconnectDelay * 2, MAX_RECONNECT_DELAY.toMillis());
+            } finally {
+                listening = false;
+            }
+        }
+    }
+
+    private void listen(Connection connection) throws SQLException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        long nextHeartbeat = System.nanoTime() + heartbeatInterval.toNanos();
+        while (running) {
+            PGNotification[] notifications = pgConnection.getNotifications((int) pollInterval.toMillis());
+            if (notifications != null) {
+                for (PGNotification notification : notifications) {
+                    CustomerChangeEvent event = parse(notification.getParameter());
+                    if (event != null) {
+                        publish(event);
+                    }
+                }
+            }
+            if (System.nanoTime() - nextHeartbeat > 0) {
+                // a half-open socket would otherwise block here silently forever
+                if (!connection.isValid((int) Math.max(1, heartbeatInterval.toSeconds()))) {
+                    throw new SQLException("customer change listener connection is no longer valid");
+                }
+                nextHeartbeat = System.nanoTime() + heartbeatInterval.toNanos();
+            }
+        }
+    }
+
+    private void publish(CustomerChangeEvent event) {
+        try {
+            eventPublisher.publishEvent(event);
+        } catch (RuntimeException e) {
+            log.warn("customer change consumer failed on {}", event, e);
+        }
+    }
+
+    /**
+     * Parses {@code OPERATION:id,id,...}. Returns null for payloads that carry
+     * nothing to act on, or that this version does not understand.
+     */
+    static CustomerChangeEvent parse(String payload) {
+        int separator = payload.indexOf(':');
+        if (separator < 0) {
+            return null;
+        }
+        CustomerChangeEvent.Operation operation;
+        List<Integer> ids;
+        try {
+            operation = CustomerChangeEvent.Operation.valueOf(payload.substring(0, separator));
+            String idList = payload.substring(separator + 1);
+            ids = idList.isEmpty()
+                    ? List.of()
+                    : Arrays.stream(idList.split(",")).map(Integer::valueOf).toList();
+        } catch (IllegalArgumentException e) {
+            log.warn("ignoring unknown customer change notification [{}]", payload);
+            return null;
+        }
+        if (operation == CustomerChangeEvent.Operation.RESET) {
+            return CustomerChangeEvent.reset();
+        }
+        return ids.isEmpty() ? null : new CustomerChangeEvent(operation, ids);
+    }
+}
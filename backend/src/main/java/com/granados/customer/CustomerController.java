@@ -1,10 +1,21 @@
 package com.granados.customer;
 
 import com.granados.jwt.JWTUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.util.List;
 
 @RestController
@@ -12,33 +23,144 @@ import java.util.List;
 public class CustomerController {
 
     private final CustomerService customerService;
+    private final CustomerBatchService customerBatchService;
+    private final CustomerExportService customerExportService;
+    private final CustomerImportService customerImportService;
+    private final CustomerStatsService customerStatsService;
+    private final CustomerSuggestionIndex customerSuggestionIndex;
     private final JWTUtil jwtUtil;
 
-    public CustomerController(CustomerService customerService, JWTUtil jwtUtil) {
+    public CustomerController(CustomerService customerService,
+                              CustomerBatchService customerBatchService,
+                              CustomerExportService customerExportService,
+                              CustomerImportService customerImportService,
+                              CustomerStatsService customerStatsService,
+                              CustomerSuggestionIndex customerSuggestionIndex,
+                              JWTUtil jwtUtil) {
         this.customerService = customerService;
+        this.customerBatchService = customerBatchService;
+        this.customerExportService = customerExportService;
+        this.customerImportService = customerImportService;
+        this.customerStatsService = customerStatsService;
+        this.customerSuggestionIndex = customerSuggestionIndex;
         this.jwtUtil = jwtUtil;
     }
 
+    /**
+     * Answers {@code If-None-Match} with 304 from the table change count alone,
+     * without reading or serializing the customers.
+     */
     @GetMapping
-    public List<CustomerDTO> getCustomers(){
+    public List<CustomerDTO> getCustomers(WebRequest webRequest, HttpServletResponse response){
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        String eTag = "\"customers-%d\"".formatted(customerService.getCustomersChangeCount());
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
         return customerService.getAllCustomers();
     }
 
+    @GetMapping(params = "limit")
+    public CustomerPage getCustomersPage(
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam("limit") int limit,
+            @RequestParam(value = "gender", required = false) Gender gender,
+            @RequestParam(value = "minAge", required = false) Integer minAge,
+            @RequestParam(value = "maxAge", required = false) Integer maxAge,
+            @RequestParam(value = "sort", defaultValue = "ID") CustomerSort sort,
+            @RequestParam(value = "descending", defaultValue = "false") boolean descending){
+        CustomerQuery query = new CustomerQuery(gender, minAge, maxAge, sort, descending, null, limit);
+        return customerService.getCustomersPage(query, after);
+    }
+
+    @GetMapping("search")
+    public CustomerSearchPage searchCustomers(
+            @RequestParam("q") String query,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        return customerService.searchCustomers(query, page, size);
+    }
+
+    @GetMapping("suggest")
+    public List<CustomerSuggestion> suggestCustomers(
+            @RequestParam("prefix") String prefix,
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return customerSuggestionIndex.suggest(prefix, limit);
+    }
+
+    @GetMapping("stats")
+    public CustomerStats getCustomerStats() {
+        return customerStatsService.getCustomerStats();
+    }
+
+    @GetMapping("export")
+    public void exportCustomers(
+            @RequestParam(value = "format", defaultValue = "CSV") CustomerExportFormat format,
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+            HttpServletResponse response) throws IOException {
+        String filename = "customers." + format.getExtension() + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" : format.getMediaType().toString());
+        response.setHeader(
+                HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(filename).build().toString());
+        customerExportService.exportCustomers(format, gzip, response.getOutputStream());
+    }
+
     @GetMapping("{customerId}")
-    public CustomerDTO getCustomerById(@PathVariable(value = "customerId") Integer customerId){
-        return customerService.getCustomer(customerId);
+    public CustomerDTO getCustomerById(@PathVariable(value = "customerId") Integer customerId,
+                                       WebRequest webRequest,
+                                       HttpServletResponse response){
+        VersionedCustomerDTO customer = customerService.getVersionedCustomer(customerId);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        String eTag = "\"%d-%d\"".formatted(customerId, customer.version());
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        return customer.customer();
     }
 
     @PostMapping
     public ResponseEntity<?> registerCustomer(
             @RequestBody CustomerRegistrationRequest request){
-        customerService.addCustomer(request);
-        String jwtToken = jwtUtil.issueToken(request.email(), "ROLE_USER");
+        Integer customerId = customerService.addCustomer(request);
+        // a new row starts at version 0
+        String jwtToken = jwtUtil.issueToken(request.email(), customerId, 0, List.of("ROLE_USER"));
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{customerId}")
+                .buildAndExpand(customerId)
+                .toUri();
         return ResponseEntity.ok()
+                .location(location)
                 .header(HttpHeaders.AUTHORIZATION, jwtToken)
                 .build();
     }
 
+    @PostMapping("batch")
+    public List<CustomerBatchResult> registerCustomers(
+            @RequestBody List<CustomerRegistrationRequest> requests){
+        return customerBatchService.registerCustomers(requests);
+    }
+
+    // large files go here: the body is streamed, no size limit and nothing buffered
+    @PostMapping(value = "import", consumes = "text/csv")
+    public CustomerImportResult importCustomers(HttpServletRequest request) throws IOException {
+        return customerImportService.importCustomers(request.getInputStream());
+    }
+
+    // form uploads are held by the multipart resolver, within spring.servlet.multipart limits
+    @PostMapping(value = "import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public CustomerImportResult importCustomers(@RequestParam("file") MultipartFile file) throws IOException {
+        try (InputStream csv = file.getInputStream()) {
+            return customerImportService.importCustomers(csv);
+        }
+    }
+
+    @DeleteMapping
+    public CustomerBulkDeleteResponse deleteCustomers(
+            @RequestBody CustomerBulkDeleteRequest request){
+        return customerService.deleteCustomersByIds(request.ids());
+    }
+
     @DeleteMapping("{customerId}")
     public void deleteCustomerById(@PathVariable("customerId") Integer customerId){
         customerService.deleteCustomerById(customerId);
@@ -0,0 +1,53 @@
+package com.granados.customer;
+
+import com.granados.exception.RequestValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor handed to clients. It carries the sort it was issued
+ * for, the id of the last customer of a page and, unless sorting by id, that
+ * customer's sort key: {@code sort:id[:key]}. The next page starts right
+ * after that position.
+ */
+final class CustomerCursor {
+
+    private CustomerCursor() {
+    }
+
+    static String encode(CustomerSort sort, CustomerDTO last) {
+        String value = sort.getColumn() + ":" + last.id();
+        switch (sort) {
+            case NAME -> value += ":" + last.name();
+            case AGE -> value += ":" + last.age();
+            case ID -> {
+            }
+        }
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static CustomerQuery.After decode(String cursor, CustomerSort sort) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = value.split(":", 3);
+            if (!parts[0].equals(sort.getColumn())
+                    || parts.length != (sort == CustomerSort.ID ? 2 : 3)) {
+                throw new IllegalArgumentException(value);
+            }
+            Integer id = Integer.valueOf(parts[1]);
+            return switch (sort) {
+                case ID -> new CustomerQuery.After(id, null, null);
+                case NAME -> new CustomerQuery.After(id, parts[2], null);
+                case AGE -> new CustomerQuery.After(id, null, Integer.valueOf(parts[2]));
+            };
+        } catch (IllegalArgumentException e) {
+            throw new RequestValidationException("invalid cursor [%s]".formatted(cursor));
+        }
+    }
+}
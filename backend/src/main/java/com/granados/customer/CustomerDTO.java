@@ -12,5 +12,13 @@ public record CustomerDTO (
         String username
 ){
 
+    private static final List<String> USER_ROLES = List.of("ROLE_USER");
 
+    /**
+     * Read projection constructor: every customer has the user role and
+     * logs in with the email, so neither needs to be loaded.
+     */
+    public CustomerDTO(Integer id, String name, String email, Gender gender, Integer age) {
+        this(id, name, email, gender, age, USER_ROLES, email);
+    }
 }
@@ -0,0 +1,133 @@
+package com.granados.customer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of customers returned by {@link CustomerService#getCustomer},
+ * kept with the version they were read at.
+ * Caffeine bounds it by size with W-TinyLFU eviction, entries also expire after
+ * the time to live. Hit ratio comes with the cache metrics, lookup latency is
+ * timed per result.
+ * <p>
+ * Customers are dropped as soon as a {@link CustomerChangeEvent} reports them
+ * updated or deleted, whichever instance changed them. A load that raced with
+ * an invalidation is not cached, and neither is one that started within the
+ * replica read-your-writes window after an invalidation: it may have read a
+ * replica that had not caught up with the change yet.
+ */
+@Component
+public class CustomerDTOCache {
+
+    static final String CACHE_NAME = "customer.dto";
+    static final String LOOKUP_TIMER = "customer.dto.lookup";
+
+    private final Cache<Integer, VersionedCustomerDTO> customers;
+    private final Cache<Integer, Boolean> recentlyInvalidated;
+    private final Timer hits;
+    private final Timer misses;
+    private final long replicaLagNanos;
+    private long generation;
+    private long invalidatedAllAt;
+
+    public CustomerDTOCache(MeterRegistry meterRegistry,
+                            @Value("${customer.dto-cache.maximum-size:10000}") long maximumSize,
+                            @Value("${customer.dto-cache.time-to-live:PT10M}") Duration timeToLive,
+                            @Value("${replica.read-your-writes-window:5s}") Duration replicaLagWindow) {
+        this.customers = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+        this.replicaLagNanos = replicaLagWindow.toNanos();
+        this.invalidatedAllAt = System.nanoTime() - replicaLagNanos;
+        this.recentlyInvalidated = Caffeine.newBuilder()
+                .expireAfterWrite(replicaLagWindow)
+                .build();
+        this.hits = lookupTimer(meterRegistry, "hit");
+        this.misses = lookupTimer(meterRegistry, "miss");
+        CaffeineCacheMetrics.monitor(meterRegistry, customers, CACHE_NAME);
+    }
+
+    /**
+     * The cached customer, or the one the loader finds, cached for next time.
+     * Customers the loader does not find are not cached.
+     */
+    public Optional<VersionedCustomerDTO> get(Integer customerId,
+                                              Function<Integer, Optional<VersionedCustomerDTO>> loader) {
+        long start = System.nanoTime();
+        VersionedCustomerDTO cached = customers.getIfPresent(customerId);
+        if (cached != null) {
+            hits.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Optional.of(cached);
+        }
+
+        long expectedGeneration = generation();
+        boolean cacheable = isCacheable(customerId, start);
+        Optional<VersionedCustomerDTO> loaded = loader.apply(customerId);
+        if (cacheable) {
+            loaded.ifPresent(customer -> put(customerId, customer, expectedGeneration));
+        }
+        misses.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return loaded;
+    }
+
+    synchronized long generation() {
+        return generation;
+    }
+
+    private synchronized boolean isCacheable(Integer customerId, long now) {
+        return now - invalidatedAllAt >= replicaLagNanos
+                && recentlyInvalidated.getIfPresent(customerId) == null;
+    }
+
+    private synchronized void put(Integer customerId, VersionedCustomerDTO customer, long expectedGeneration) {
+        if (generation == expectedGeneration) {
+            customers.put(customerId, customer);
+        }
+    }
+
+    public synchronized void invalidate(Collection<Integer> customerIds) {
+        generation++;
+        for (Integer customerId : customerIds) {
+            recentlyInvalidated.put(customerId, Boolean.TRUE);
+        }
+        customers.invalidateAll(customerIds);
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidatedAllAt = System.nanoTime();
+        customers.invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChange(CustomerChangeEvent event) {
+        switch (event.operation()) {
+            // nothing is cached for ids that did not exist
+            case CREATED -> {
+            }
+            case UPDATED, DELETED -> invalidate(event.customerIds());
+            case RESET -> invalidateAll();
+        }
+    }
+
+    private static Timer lookupTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder(LOOKUP_TIMER)
+                .description("Time to get a customer by id through the cache")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
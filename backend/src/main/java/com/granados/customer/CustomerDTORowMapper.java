@@ -0,0 +1,36 @@
+package com.granados.customer;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maps the read projection {@code id, name, email, age, gender} straight into
+ * a {@link CustomerDTO}. Columns are read by index, so queries using this
+ * mapper must select them in exactly that order.
+ */
+@Component
+public class CustomerDTORowMapper implements RowMapper<CustomerDTO> {
+
+    static final String COLUMNS = "id, name, email, age, gender";
+
+    private static final Map<String, Gender> GENDERS = Arrays.stream(Gender.values())
+            .collect(Collectors.toUnmodifiableMap(Gender::name, Function.identity()));
+
+    @Override
+    public CustomerDTO mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new CustomerDTO(
+                rs.getInt(1),
+                rs.getString(2),
+                rs.getString(3),
+                GENDERS.get(rs.getString(5)),
+                rs.getInt(4)
+        );
+    }
+}
@@ -1,16 +1,27 @@
 package com.granados.customer;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface CustomerDao {
 
     List<Customer> selectAllCustomers();
+    List<CustomerDTO> selectAllCustomerDTOs();
+    List<CustomerDTO> selectCustomerDTOsAfter(Integer afterId, int limit);
+    List<CustomerDTO> selectCustomerDTOs(CustomerQuery query);
     Optional<Customer> selectCustomerById(Integer customerId);
-    void insertCustomer(Customer customer);
+    Optional<CustomerDTO> selectCustomerDTOById(Integer customerId);
+    Optional<VersionedCustomerDTO> selectVersionedCustomerDTOById(Integer customerId);
+    List<CustomerDTO> searchCustomers(String query, int offset, int limit);
+    Optional<Integer> insertCustomer(Customer customer);
+    int[] insertCustomers(List<Customer> customers);
     boolean existsCustomerWithEmail(String email);
+    Set<String> selectExistingEmails(Collection<String> emails);
     boolean existsCustomerWithId(Integer customerId);
-    void deleteCustomerById(Integer customerId);
+    boolean deleteCustomerById(Integer customerId);
+    List<Integer> deleteCustomersByIds(Collection<Integer> customerIds);
     void updateCustomer(Customer customer);
     Optional<Customer> selectUserByEmail(String email);
 }
@@ -0,0 +1,32 @@
+package com.granados.customer;
+
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+@Service
+public class CustomerExportService {
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final CustomerJDBCDataAccessService customerJDBCDataAccessService;
+
+    public CustomerExportService(CustomerJDBCDataAccessService customerJDBCDataAccessService) {
+        this.customerJDBCDataAccessService = customerJDBCDataAccessService;
+    }
+
+    public long exportCustomers(CustomerExportFormat format,
+                                boolean gzip,
+                                OutputStream out) throws IOException {
+        if (!gzip) {
+            return customerJDBCDataAccessService.copyCustomersTo(format, out);
+        }
+
+        GZIPOutputStream gzipOut = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+        long rows = customerJDBCDataAccessService.copyCustomersTo(format, gzipOut);
+        gzipOut.finish();
+        return rows;
+    }
+}
@@ -0,0 +1,63 @@
+package com.granados.customer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Customer ids for inserts that do not go through JPA, reserved from
+ * customer_id_seq the way Hibernate does for {@link Customer#getId()}: every
+ * nextval hands out the {@link #ALLOCATION_SIZE} ids starting at the value it
+ * returns (pooled-lo). Leaving the id to the column default would spend a
+ * whole block on every row.
+ */
+class CustomerIdPool {
+
+    /**
+     * Same as the INCREMENT BY of customer_id_seq.
+     */
+    static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private int next;
+    private int end;
+
+    CustomerIdPool(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    Integer next() {
+        return next(1).get(0);
+    }
+
+    /**
+     * {@code count} unused ids, left over from the current block first, with
+     * one round trip for all the blocks still needed.
+     */
+    synchronized List<Integer> next(int count) {
+        List<Integer> ids = new ArrayList<>(count);
+        while (ids.size() < count && next < end) {
+            ids.add(next++);
+        }
+        if (ids.size() == count) {
+            return ids;
+        }
+
+        var sql = """
+                SELECT nextval('customer_id_seq')::INTEGER
+                FROM generate_series(1, ?)
+                """;
+
+        int blocks = (count - ids.size() + ALLOCATION_SIZE - 1) / ALLOCATION_SIZE;
+        for (Integer lo : jdbcTemplate.queryForList(sql, Integer.class, blocks)) {
+            int taken = Math.min(ALLOCATION_SIZE, count - ids.size());
+            for (int i = 0; i < taken; i++) {
+                ids.add(lo + i);
+            }
+            next = lo + taken;
+            end = lo + ALLOCATION_SIZE;
+        }
+        return ids;
+    }
+}
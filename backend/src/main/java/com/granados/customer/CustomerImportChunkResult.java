@@ -0,0 +1,10 @@
+package com.granados.customer;
+
+public record CustomerImportChunkResult(
+        int chunk,
+        int rows,
+        int inserted,
+        int duplicates,
+        int invalid
+) {
+}
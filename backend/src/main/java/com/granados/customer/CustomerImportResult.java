@@ -0,0 +1,12 @@
+package com.granados.customer;
+
+import java.util.List;
+
+public record CustomerImportResult(
+        long rows,
+        long inserted,
+        long duplicates,
+        long invalid,
+        List<CustomerImportChunkResult> chunks
+) {
+}
@@ -0,0 +1,185 @@
+package com.granados.customer;
+
+import com.granados.exception.RequestValidationException;
+import com.granados.security.BatchPasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Imports customers from a csv stream with the columns
+ * name, email, password, age and gender (any order, header required).
+ * <p>
+ * The stream is read in chunks: while one chunk is being hashed on the
+ * {@link BatchPasswordEncoder} pool the next one is parsed, and hashed
+ * chunks are written with COPY. At most two chunks are held in memory,
+ * whatever the size of the file.
+ */
+@Service
+public class CustomerImportService {
+
+    private static final List<String> COLUMNS = List.of("name", "email", "password", "age", "gender");
+
+    private final CustomerJDBCDataAccessService customerJDBCDataAccessService;
+    private final BatchPasswordEncoder batchPasswordEncoder;
+    private final int chunkSize;
+
+    public CustomerImportService(CustomerJDBCDataAccessService customerJDBCDataAccessService,
+                                 BatchPasswordEncoder batchPasswordEncoder,
+                                 @Value("${customer.import.chunk-size:5000}") int chunkSize) {
+        this.customerJDBCDataAccessService = customerJDBCDataAccessService;
+        this.batchPasswordEncoder = batchPasswordEncoder;
+        this.chunkSize = chunkSize;
+    }
+
+    public CustomerImportResult importCustomers(InputStream csv) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8));
+        int[] columns = readHeader(reader.readLine());
+
+        List<CustomerImportChunkResult> chunks = new ArrayList<>();
+        CompletableFuture<HashedChunk> pending = null;
+
+        for (int chunk = 0; ; chunk++) {
+            ParsedChunk parsed = readChunk(reader, columns, chunk);
+            if (parsed.isEmpty()) {
+                break;
+            }
+
+            CompletableFuture<HashedChunk> hashing = hash(parsed);
+            if (pending != null) {
+                chunks.add(write(pending.join()));
+            }
+            pending = hashing;
+        }
+
+        if (pending != null) {
+            chunks.add(write(pending.join()));
+        }
+
+        return new CustomerImportResult(
+                chunks.stream().mapToLong(CustomerImportChunkResult::rows).sum(),
+                chunks.stream().mapToLong(CustomerImportChunkResult::inserted).sum(),
+                chunks.stream().mapToLong(CustomerImportChunkResult::duplicates).sum(),
+                chunks.stream().mapToLong(CustomerImportChunkResult::invalid).sum(),
+                chunks
+        );
+    }
+
+    private int[] readHeader(String header) {
+        if (header == null) {
+            throw new RequestValidationException("csv header is missing");
+        }
+
+        Map<String, Integer> positions = new HashMap<>();
+        List<String> names = CustomerCsv.parseLine(header);
+        for (int i = 0; i < names.size(); i++) {
+            positions.putIfAbsent(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+
+        int[] columns = new int[COLUMNS.size()];
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            Integer position = positions.get(COLUMNS.get(i));
+            if (position == null) {
+                throw new RequestValidationException(
+                        "csv header must contain the columns %s".formatted(COLUMNS));
+            }
+            columns[i] = position;
+        }
+        return columns;
+    }
+
+    private ParsedChunk readChunk(BufferedReader reader, int[] columns, int chunk) throws IOException {
+        List<CustomerRegistrationRequest> rows = new ArrayList<>(chunkSize);
+        int invalid = 0;
+
+        String line;
+        while (rows.size() + invalid < chunkSize && (line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            CustomerRegistrationRequest row = toRequest(CustomerCsv.parseLine(line), columns);
+            if (row == null) {
+                invalid++;
+            } else {
+                rows.add(row);
+            }
+        }
+        return new ParsedChunk(chunk, rows, invalid);
+    }
+
+    private static CustomerRegistrationRequest toRequest(List<String> values, int[] columns) {
+        for (int column : columns) {
+            if (column >= values.size() || values.get(column).isBlank()) {
+                return null;
+            }
+        }
+        try {
+            return new CustomerRegistrationRequest(
+                    values.get(columns[0]).trim(),
+                    values.get(columns[1]).trim(),
+                    values.get(columns[2]),
+                    Integer.valueOf(values.get(columns[3]).trim()),
+                    Gender.valueOf(values.get(columns[4]).trim().toUpperCase(Locale.ROOT))
+            );
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private CompletableFuture<HashedChunk> hash(ParsedChunk parsed) {
+        List<String> passwords = parsed.rows()
+                .stream()
+                .map(CustomerRegistrationRequest::password)
+                .toList();
+
+        return batchPasswordEncoder.encodeAllAsync(passwords)
+                .thenApply(hashes -> {
+                    List<Customer> customers = new ArrayList<>(hashes.size());
+                    for (int i = 0; i < hashes.size(); i++) {
+                        CustomerRegistrationRequest row = parsed.rows().get(i);
+                        customers.add(new Customer(
+                                row.name(),
+                                row.email(),
+                                hashes.get(i),
+                                row.age(),
+                                row.gender()
+                        ));
+                    }
+                    return new HashedChunk(parsed.chunk(), customers, parsed.invalid());
+                });
+    }
+
+    private CustomerImportChunkResult write(HashedChunk chunk) {
+        int inserted = chunk.customers().isEmpty()
+                ? 0
+                : customerJDBCDataAccessService.copyCustomersFrom(chunk.customers());
+        int rows = chunk.customers().size();
+        return new CustomerImportChunkResult(
+                chunk.chunk(),
+                rows + chunk.invalid(),
+                inserted,
+                rows - inserted,
+                chunk.invalid()
+        );
+    }
+
+    private record ParsedChunk(int chunk, List<CustomerRegistrationRequest> rows, int invalid) {
+        boolean isEmpty() {
+            return rows.isEmpty() && invalid == 0;
+        }
+    }
+
+    private record HashedChunk(int chunk, List<Customer> customers, int invalid) {
+    }
+}
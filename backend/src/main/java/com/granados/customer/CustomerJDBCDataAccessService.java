@@ -1,20 +1,44 @@
 package com.granados.customer;
 
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Repository("jdbc")
 public class CustomerJDBCDataAccessService implements CustomerDao {
 
     private final JdbcTemplate jdbcTemplate;
     private final CustomerRowMapper customerRowMapper;
+    private final CustomerDTORowMapper customerDTORowMapper;
+    private final CustomerIdPool idPool;
 
-    public CustomerJDBCDataAccessService(JdbcTemplate jdbcTemplate, CustomerRowMapper customerRowMapper) {
+    public CustomerJDBCDataAccessService(JdbcTemplate jdbcTemplate,
+                                         CustomerRowMapper customerRowMapper,
+                                         CustomerDTORowMapper customerDTORowMapper) {
         this.jdbcTemplate = jdbcTemplate;
         this.customerRowMapper = customerRowMapper;
+        this.customerDTORowMapper = customerDTORowMapper;
+        this.idPool = new CustomerIdPool(jdbcTemplate);
     }
 
     @Override
@@ -27,6 +51,81 @@ public class CustomerJDBCDataAccessService implements CustomerDao {
         return jdbcTemplate.query(sql, customerRowMapper);
     }
 
+    @Override
+    public List<CustomerDTO> selectAllCustomerDTOs() {
+        var sql = """
+                SELECT %s
+                FROM customer
+                """.formatted(CustomerDTORowMapper.COLUMNS);
+
+        return jdbcTemplate.query(sql, customerDTORowMapper);
+    }
+
+    @Override
+    public List<CustomerDTO> selectCustomerDTOsAfter(Integer afterId, int limit) {
+        var sql = """
+                SELECT %s
+                FROM customer
+                WHERE id > ?
+                ORDER BY id
+                LIMIT ?
+                """.formatted(CustomerDTORowMapper.COLUMNS);
+
+        return jdbcTemplate.query(sql, customerDTORowMapper, afterId == null ? 0 : afterId, limit);
+    }
+
+    @Override
+    public List<CustomerDTO> selectCustomerDTOs(CustomerQuery query) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+
+        if (query.gender() != null) {
+            conditions.add("gender = ?");
+            args.add(query.gender().name());
+        }
+        if (query.minAge() != null) {
+            conditions.add("age >= ?");
+            args.add(query.minAge());
+        }
+        if (query.maxAge() != null) {
+            conditions.add("age <= ?");
+            args.add(query.maxAge());
+        }
+
+        String sortColumn = query.sort().getColumn();
+        String comparison = query.descending() ? "<" : ">";
+        CustomerQuery.After after = query.after();
+        if (after != null) {
+            switch (query.sort()) {
+                case ID -> conditions.add("id %s ?".formatted(comparison));
+                case NAME, AGE -> {
+                    // row comparison, so the (key, id) index serves the keyset
+                    conditions.add("(%s, id) %s (?, ?)".formatted(sortColumn, comparison));
+                    args.add(query.sort() == CustomerSort.NAME ? after.name() : after.age());
+                }
+            }
+            args.add(after.id());
+        }
+        args.add(query.limit());
+
+        String direction = query.descending() ? "DESC" : "ASC";
+        var sql = """
+                SELECT %s
+                FROM customer
+                %s
+                ORDER BY %s
+                LIMIT ?
+                """.formatted(
+                CustomerDTORowMapper.COLUMNS,
+                conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions),
+                query.sort() == CustomerSort.ID
+                        ? "id " + direction
+                        : "%s %s, id %s".formatted(sortColumn, direction, direction)
+        );
+
+        return jdbcTemplate.query(sql, customerDTORowMapper, args.toArray());
+    }
+
     @Override
     public Optional<Customer> selectCustomerById(Integer customerId) {
         var sql = """
@@ -41,20 +140,107 @@ public class CustomerJDBCDataAccessService implements CustomerDao {
     }
 
     @Override
-    public void insertCustomer(Customer customer) {
+    public Optional<CustomerDTO> selectCustomerDTOById(Integer customerId) {
+        var sql = """
+                SELECT %s
+                FROM customer
+                WHERE id = ?
+                """.formatted(CustomerDTORowMapper.COLUMNS);
+
+        return jdbcTemplate.query(sql, customerDTORowMapper, customerId)
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * The version is selected after the read projection columns, which the
+     * row mapper reads by index.
+     */
+    @Override
+    public Optional<VersionedCustomerDTO> selectVersionedCustomerDTOById(Integer customerId) {
         var sql = """
-                INSERT INTO customer(name, email, password, age, gender)
-                VALUES (?, ?, ?, ?, ?)
+                SELECT %s, version
+                FROM customer
+                WHERE id = ?
+                """.formatted(CustomerDTORowMapper.COLUMNS);
+
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new VersionedCustomerDTO(
+                        customerDTORowMapper.mapRow(rs, rowNum),
+                        rs.getLong(6)
+                ), customerId)
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Matches name or email containing the query, served by the trigram
+     * indexes, and ranks the matches by how closely a word in either column
+     * resembles it.
+     */
+    @Override
+    public List<CustomerDTO> searchCustomers(String query, int offset, int limit) {
+        var sql = """
+                SELECT %s
+                FROM customer
+                WHERE name ILIKE ? OR email ILIKE ?
+                ORDER BY greatest(word_similarity(?, name), word_similarity(?, email)) DESC, id
+                LIMIT ?
+                OFFSET ?
+                """.formatted(CustomerDTORowMapper.COLUMNS);
+
+        String pattern = "%" + CustomerSearch.escapeLike(query) + "%";
+        return jdbcTemplate.query(sql, customerDTORowMapper,
+                pattern, pattern, query, query, limit, offset);
+    }
+
+    @Override
+    public Optional<Integer> insertCustomer(Customer customer) {
+        var sql = """
+                INSERT INTO customer(id, name, email, password, age, gender)
+                VALUES (?, ?, ?, ?, ?, ?)
+                ON CONFLICT (email) DO NOTHING
+                RETURNING id
+                """;
+
+        return jdbcTemplate.query(
+                        sql,
+                        (rs, rowNum) -> rs.getInt("id"),
+                        idPool.next(),
+                        customer.getName(),
+                        customer.getEmail(),
+                        customer.getPassword(),
+                        customer.getAge(),
+                        customer.getGender().name())
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public int[] insertCustomers(List<Customer> customers) {
+        var sql = """
+                INSERT INTO customer(id, name, email, password, age, gender)
+                VALUES (?, ?, ?, ?, ?, ?)
+                ON CONFLICT (email) DO NOTHING
                 """;
-        int result = jdbcTemplate.update(
-                sql,
-                customer.getName(),
-                customer.getEmail(),
-                customer.getPassword(),
-                customer.getAge(),
-                customer.getGender().name());
 
-        System.out.println("jdbcTemplate.update = " + result);
+        List<Integer> ids = idPool.next(customers.size());
+        return jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Customer customer = customers.get(i);
+                ps.setInt(1, ids.get(i));
+                ps.setString(2, customer.getName());
+                ps.setString(3, customer.getEmail());
+                ps.setString(4, customer.getPassword());
+                ps.setInt(5, customer.getAge());
+                ps.setString(6, customer.getGender().name());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return customers.size();
+            }
+        });
     }
 
     @Override
@@ -69,6 +255,18 @@ public class CustomerJDBCDataAccessService implements CustomerDao {
         return count != null && count > 0;
     }
 
+    @Override
+    public Set<String> selectExistingEmails(Collection<String> emails) {
+        var sql = """
+                SELECT email
+                FROM customer
+                WHERE email = ANY(?)
+                """;
+
+        return new HashSet<>(jdbcTemplate.queryForList(
+                sql, String.class, (Object) emails.toArray(String[]::new)));
+    }
+
     @Override
     public boolean existsCustomerWithId(Integer customerId) {
         var sql = """
@@ -82,58 +280,69 @@ public class CustomerJDBCDataAccessService implements CustomerDao {
     }
 
     @Override
-    public void deleteCustomerById(Integer customerId) {
+    public boolean deleteCustomerById(Integer customerId) {
         var sql = """
                 DELETE 
                 FROM customer
                 WHERE id = ?
                 """;
 
-        jdbcTemplate.update(sql, customerId);
+        return jdbcTemplate.update(sql, customerId) > 0;
+    }
+
+    @Override
+    public List<Integer> deleteCustomersByIds(Collection<Integer> customerIds) {
+        var sql = """
+                DELETE
+                FROM customer
+                WHERE id = ANY(?)
+                RETURNING id
+                """;
+
+        return jdbcTemplate.query(
+                sql,
+                (rs, rowNum) -> rs.getInt("id"),
+                (Object) customerIds.toArray(Integer[]::new));
     }
 
     @Override
     public void updateCustomer(Customer customer) {
-        if(customer.getName() != null){
-            String sql = "UPDATE customer SET name = ? WHERE id = ?";
-            int result = jdbcTemplate.update(
-                    sql,
-                    customer.getName(),
-                    customer.getId()
-            );
-            System.out.println("update customer name result = " + result);
+        Set<String> modifiedFields = customer.getModifiedFields();
+        Map<String, Object> columns = new LinkedHashMap<>();
+
+        if(modifiedFields.contains("name") && customer.getName() != null){
+            columns.put("name", customer.getName());
         }
 
-        if(customer.getAge() != null){
-            String sql = "UPDATE customer SET age = ? WHERE id = ?";
-            int result = jdbcTemplate.update(
-                    sql,
-                    customer.getAge(),
-                    customer.getId()
-            );
-            System.out.println("update customer age result = " + result);
+        if(modifiedFields.contains("email") && customer.getEmail() != null){
+            columns.put("email", customer.getEmail());
+        }
 
+        if(modifiedFields.contains("age") && customer.getAge() != null){
+            columns.put("age", customer.getAge());
         }
 
-        if(customer.getEmail() != null){
-            String sql = "UPDATE customer SET email = ? WHERE id = ?";
-            int result = jdbcTemplate.update(
-                    sql,
-                    customer.getEmail(),
-                    customer.getId()
-            );
-            System.out.println("update customer email result = " + result);
+        if(modifiedFields.contains("gender") && customer.getGender() != null){
+            columns.put("gender", customer.getGender().name());
         }
 
-        if(customer.getGender() != null){
-            String sql = "UPDATE customer SET gender = ? WHERE id = ?";
-            int result = jdbcTemplate.update(
-                    sql,
-                    customer.getGender().name(),
-                    customer.getId()
-            );
-            System.out.println("update customer gender result = " + result);
+        if(columns.isEmpty()){
+            return;
         }
+
+        // column names come from the fixed set above, values are always bound
+        var sql = "UPDATE customer SET %s WHERE id = ?".formatted(
+                columns.keySet()
+                        .stream()
+                        .map(column -> column + " = ?")
+                        .collect(Collectors.joining(", "))
+        );
+
+        List<Object> args = new ArrayList<>(columns.values());
+        args.add(customer.getId());
+
+        jdbcTemplate.update(sql, args.toArray());
+        customer.clearModifiedFields();
     }
 
     @Override
@@ -148,4 +357,87 @@ public class CustomerJDBCDataAccessService implements CustomerDao {
                 .stream()
                 .findFirst();
     }
+
+    /**
+     * Streams the customer table straight from the server into {@code out}
+     * with COPY TO STDOUT, so rows are never materialized in the heap.
+     * The password column is never part of the export.
+     */
+    public long copyCustomersTo(CustomerExportFormat format, OutputStream out) {
+        var sql = switch (format) {
+            case CSV -> """
+                    COPY (SELECT id, name, email, age, gender FROM customer)
+                    TO STDOUT WITH (FORMAT csv, HEADER)
+                    """;
+            // csv format with quote/delimiter bytes json never contains, so each json row is written verbatim
+            case NDJSON -> """
+                    COPY (SELECT json_build_object(
+                            'id', id, 'name', name, 'email', email, 'age', age, 'gender', gender)
+                          FROM customer)
+                    TO STDOUT WITH (FORMAT csv, QUOTE E'\\x01', DELIMITER E'\\x02')
+                    """;
+        };
+
+        Long rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return new CopyManager(connection.unwrap(BaseConnection.class))
+                        .copyOut(sql, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return rows == null ? 0 : rows;
+    }
+
+    /**
+     * Loads customers through COPY FROM STDIN into a per-connection staging
+     * table and merges them into customer with a single statement. Rows whose
+     * email already exists, or repeats within the list, are skipped.
+     *
+     * @return the number of customers inserted
+     */
+    public int copyCustomersFrom(List<Customer> customers) {
+        List<Integer> ids = idPool.next(customers.size());
+        StringBuilder csv = new StringBuilder(customers.size() * 128);
+        for (int i = 0; i < customers.size(); i++) {
+            Customer customer = customers.get(i);
+            csv.append(ids.get(i)).append(',');
+            CustomerCsv.appendField(csv, customer.getName());
+            csv.append(',');
+            CustomerCsv.appendField(csv, customer.getEmail());
+            csv.append(',');
+            CustomerCsv.appendField(csv, customer.getPassword());
+            csv.append(',').append(customer.getAge()).append(',');
+            csv.append(customer.getGender().name()).append('\n');
+        }
+
+        Integer inserted = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("""
+                        CREATE TEMP TABLE IF NOT EXISTS customer_import(
+                          id INTEGER, name TEXT, email TEXT, password TEXT, age INTEGER, gender TEXT
+                        )
+                        """);
+                statement.execute("TRUNCATE customer_import");
+                try {
+                    new CopyManager(connection.unwrap(BaseConnection.class)).copyIn(
+                            "COPY customer_import(id, name, email, password, age, gender) FROM STDIN WITH (FORMAT csv)",
+                            new StringReader(csv.toString()));
+
+                    return statement.executeUpdate("""
+                            INSERT INTO customer(id, name, email, password, age, gender)
+                            SELECT DISTINCT ON (email) id, name, email, password, age, gender
+                            FROM customer_import
+                            ORDER BY email, id
+                            ON CONFLICT (email) DO NOTHING
+                            """);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    statement.execute("TRUNCATE customer_import");
+                }
+            }
+        });
+        return inserted == null ? 0 : inserted;
+    }
 }
@@ -1,9 +1,15 @@
 package com.granados.customer;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository("jpa")
 public class CustomerJPADataAccessService implements CustomerDao {
@@ -19,14 +25,91 @@ public class CustomerJPADataAccessService implements CustomerDao {
         return customerRepository.findAll();
     }
 
+    @Override
+    public List<CustomerDTO> selectAllCustomerDTOs() {
+        return customerRepository.findAllCustomerDTOs();
+    }
+
+    @Override
+    public List<CustomerDTO> selectCustomerDTOsAfter(Integer afterId, int limit) {
+        return customerRepository.findCustomerDTOsAfter(
+                afterId == null ? 0 : afterId,
+                PageRequest.ofSize(limit)
+        );
+    }
+
+    @Override
+    public List<CustomerDTO> selectCustomerDTOs(CustomerQuery query) {
+        return customerRepository.findCustomerDTOs(CustomerSpecifications.matching(query), query);
+    }
+
     @Override
     public Optional<Customer> selectCustomerById(Integer customerId) {
         return customerRepository.findById(customerId);
     }
 
     @Override
-    public void insertCustomer(Customer customer) {
-        customerRepository.save(customer);
+    public Optional<CustomerDTO> selectCustomerDTOById(Integer customerId) {
+        return customerRepository.findCustomerDTOById(customerId);
+    }
+
+    @Override
+    public Optional<VersionedCustomerDTO> selectVersionedCustomerDTOById(Integer customerId) {
+        return customerRepository.findVersionedCustomerDTOById(customerId);
+    }
+
+    @Override
+    public List<CustomerDTO> searchCustomers(String query, int offset, int limit) {
+        return customerRepository.searchCustomers(
+                query,
+                "%" + CustomerSearch.escapeLike(query) + "%",
+                offset,
+                limit
+        );
+    }
+
+    @Override
+    public Optional<Integer> insertCustomer(Customer customer) {
+        return customerRepository.insertCustomerIfEmailAbsent(
+                customer.getName(),
+                customer.getEmail(),
+                customer.getPassword(),
+                customer.getAge(),
+                customer.getGender().name()
+        );
+    }
+
+    /**
+     * Persists the customers whose email is free through {@code saveAll}, so
+     * ids come from the pooled sequence and the inserts go out in JDBC
+     * batches when the transaction commits. Meant to be called outside a
+     * transaction: if a concurrent registration takes an email after the
+     * check, the batch rolls back and the rows are retried one by one.
+     */
+    @Override
+    public int[] insertCustomers(List<Customer> customers) {
+        Set<String> taken = new HashSet<>(customerRepository.findExistingEmails(
+                customers.stream().map(Customer::getEmail).toList()
+        ));
+        int[] counts = new int[customers.size()];
+        List<Customer> toSave = new ArrayList<>(customers.size());
+        for (int i = 0; i < customers.size(); i++) {
+            Customer customer = customers.get(i);
+            if (taken.add(customer.getEmail())) {
+                toSave.add(customer);
+                counts[i] = 1;
+            }
+        }
+
+        try {
+            customerRepository.saveAll(toSave);
+        } catch (DataIntegrityViolationException e) {
+            toSave.forEach(customer -> customer.setId(null));
+            return customers.stream()
+                    .mapToInt(customer -> insertCustomer(customer).isPresent() ? 1 : 0)
+                    .toArray();
+        }
+        return counts;
     }
 
     @Override
@@ -34,14 +117,24 @@ public class CustomerJPADataAccessService implements CustomerDao {
         return customerRepository.existsCustomerByEmail(email);
     }
 
+    @Override
+    public Set<String> selectExistingEmails(Collection<String> emails) {
+        return customerRepository.findExistingEmails(emails);
+    }
+
     @Override
     public boolean existsCustomerWithId(Integer customerId) {
         return customerRepository.existsCustomerById(customerId);
     }
 
     @Override
-    public void deleteCustomerById(Integer customerId) {
-        customerRepository.deleteById(customerId);
+    public boolean deleteCustomerById(Integer customerId) {
+        return customerRepository.deleteCustomerById(customerId) > 0;
+    }
+
+    @Override
+    public List<Integer> deleteCustomersByIds(Collection<Integer> customerIds) {
+        return customerRepository.deleteCustomersByIds(customerIds);
     }
 
     @Override
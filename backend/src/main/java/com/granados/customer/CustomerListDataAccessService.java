@@ -1,90 +1,271 @@
 package com.granados.customer;
 
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
+/**
+ * In-memory store for load tests and edge nodes.
+ * <p>
+ * Customers are indexed by id, with a unique index by email and an ordered
+ * id set for keyset pages. The email index is the uniqueness guard: an id or
+ * email is claimed there before the customer becomes visible by id, and
+ * changes to one customer are serialized on its id entry. Customers are
+ * copied in and out, so callers cannot change stored state behind the
+ * store's back.
+ */
 @Repository("list")
 public class CustomerListDataAccessService implements CustomerDao {
 
-    //db
-    private static List<Customer> customers;
+    private final Map<Integer, Customer> customersById = new ConcurrentHashMap<>();
+    private final Map<String, Integer> idsByEmail = new ConcurrentHashMap<>();
+    private final NavigableSet<Integer> ids = new ConcurrentSkipListSet<>();
+    private final AtomicInteger sequence = new AtomicInteger();
 
-    static {
-        customers = new ArrayList<>();
-        Customer german = new Customer(
-                1,
+    public CustomerListDataAccessService() {
+        insertCustomer(new Customer(
                 "German",
                 "german@gmail.com",
                 "password",
                 28,
                 Gender.MALE
-        );
-
-        Customer mateo = new Customer(
-                2,
+        ));
+        insertCustomer(new Customer(
                 "Mateo",
                 "mateo@gmail.com",
                 "password",
                 12,
                 Gender.MALE
-        );
+        ));
+    }
 
+    @Override
+    public List<Customer> selectAllCustomers() {
+        List<Customer> customers = new ArrayList<>(customersById.size());
+        for (Integer id : ids) {
+            Customer customer = customersById.get(id);
+            if (customer != null) {
+                customers.add(copyOf(customer));
+            }
+        }
+        return customers;
+    }
 
-        customers.add(german);
-        customers.add(mateo);
+    @Override
+    public List<CustomerDTO> selectAllCustomerDTOs() {
+        return selectCustomerDTOsAfter(null, Integer.MAX_VALUE);
     }
 
     @Override
-    public List<Customer> selectAllCustomers() {
+    public List<CustomerDTO> selectCustomerDTOsAfter(Integer afterId, int limit) {
+        List<CustomerDTO> customers = new ArrayList<>(Math.min(limit, customersById.size()));
+        for (Integer id : ids.tailSet(afterId == null ? 0 : afterId, false)) {
+            if (customers.size() == limit) {
+                break;
+            }
+            Customer customer = customersById.get(id);
+            if (customer != null) {
+                customers.add(toDTO(customer));
+            }
+        }
         return customers;
     }
 
+    @Override
+    public List<CustomerDTO> selectCustomerDTOs(CustomerQuery query) {
+        Comparator<CustomerDTO> order = switch (query.sort()) {
+            case ID -> Comparator.comparing(CustomerDTO::id);
+            case NAME -> Comparator.comparing(CustomerDTO::name).thenComparing(CustomerDTO::id);
+            case AGE -> Comparator.comparing(CustomerDTO::age).thenComparing(CustomerDTO::id);
+        };
+        if (query.descending()) {
+            order = order.reversed();
+        }
+
+        CustomerQuery.After after = query.after();
+        CustomerDTO position = after == null
+                ? null
+                : new CustomerDTO(after.id(), after.name(), null, null, after.age());
+        Comparator<CustomerDTO> comparator = order;
+
+        return customersById.values()
+                .stream()
+                .map(CustomerListDataAccessService::toDTO)
+                .filter(customer -> query.gender() == null || customer.gender() == query.gender())
+                .filter(customer -> query.minAge() == null || customer.age() >= query.minAge())
+                .filter(customer -> query.maxAge() == null || customer.age() <= query.maxAge())
+                .filter(customer -> position == null || comparator.compare(customer, position) > 0)
+                .sorted(comparator)
+                .limit(query.limit())
+                .collect(Collectors.toList());
+    }
+
     @Override
     public Optional<Customer> selectCustomerById(Integer customerId) {
-        return customers
+        return Optional.ofNullable(customersById.get(customerId))
+                .map(CustomerListDataAccessService::copyOf);
+    }
+
+    @Override
+    public Optional<CustomerDTO> selectCustomerDTOById(Integer customerId) {
+        return Optional.ofNullable(customersById.get(customerId))
+                .map(CustomerListDataAccessService::toDTO);
+    }
+
+    @Override
+    public Optional<VersionedCustomerDTO> selectVersionedCustomerDTOById(Integer customerId) {
+        return Optional.ofNullable(customersById.get(customerId))
+                .map(customer -> new VersionedCustomerDTO(toDTO(customer), customer.getVersion()));
+    }
+
+    @Override
+    public List<CustomerDTO> searchCustomers(String query, int offset, int limit) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        return customersById.values()
                 .stream()
-                .filter(customer -> customer.getId().equals(customerId))
-                .findFirst();
+                .filter(customer -> customer.getName().toLowerCase(Locale.ROOT).contains(needle)
+                        || customer.getEmail().toLowerCase(Locale.ROOT).contains(needle))
+                .sorted(Comparator.comparingInt((Customer customer) -> Math.min(
+                                lengthAround(customer.getName(), needle),
+                                lengthAround(customer.getEmail(), needle)))
+                        .thenComparing(Customer::getId))
+                .skip(offset)
+                .limit(limit)
+                .map(CustomerListDataAccessService::toDTO)
+                .collect(Collectors.toList());
     }
 
     @Override
-    public void insertCustomer(Customer customer) {
-        customers.add(customer);
+    public Optional<Integer> insertCustomer(Customer customer) {
+        Integer id = sequence.incrementAndGet();
+        if (idsByEmail.putIfAbsent(customer.getEmail(), id) != null) {
+            return Optional.empty();
+        }
+        Customer stored = copyOf(customer);
+        stored.setId(id);
+        customersById.put(id, stored);
+        ids.add(id);
+        return Optional.of(id);
     }
 
     @Override
-    public boolean existsCustomerWithEmail(String email) {
+    public int[] insertCustomers(List<Customer> customers) {
         return customers.stream()
-                .anyMatch(customer -> customer.getEmail().equals(email));
+                .mapToInt(customer -> insertCustomer(customer).isPresent() ? 1 : 0)
+                .toArray();
+    }
+
+    @Override
+    public boolean existsCustomerWithEmail(String email) {
+        return idsByEmail.containsKey(email);
+    }
+
+    @Override
+    public Set<String> selectExistingEmails(Collection<String> emails) {
+        return emails.stream()
+                .filter(idsByEmail::containsKey)
+                .collect(Collectors.toSet());
     }
 
     @Override
     public boolean existsCustomerWithId(Integer customerId) {
-        return customers.stream()
-                .anyMatch(customer -> customer.getId().equals(customerId));
+        return customersById.containsKey(customerId);
     }
 
     @Override
-    public void deleteCustomerById(Integer customerId) {
-        customers.stream()
-                .filter(customer -> customer.getId().equals(customerId))
-                .findFirst()
-                .ifPresent(customers::remove);
+    public boolean deleteCustomerById(Integer customerId) {
+        Customer removed = customersById.remove(customerId);
+        if (removed == null) {
+            return false;
+        }
+        ids.remove(customerId);
+        idsByEmail.remove(removed.getEmail(), customerId);
+        return true;
+    }
+
+    @Override
+    public List<Integer> deleteCustomersByIds(Collection<Integer> customerIds) {
+        return customerIds.stream()
+                .filter(this::deleteCustomerById)
+                .collect(Collectors.toList());
     }
 
     @Override
     public void updateCustomer(Customer customer) {
-        customers.add(customer);
+        Integer id = customer.getId();
+        customersById.computeIfPresent(id, (key, current) -> {
+            Customer updated = copyOf(current);
+            if (customer.getName() != null) {
+                updated.setName(customer.getName());
+            }
+            if (customer.getAge() != null) {
+                updated.setAge(customer.getAge());
+            }
+            if (customer.getGender() != null) {
+                updated.setGender(customer.getGender());
+            }
+            if (customer.getEmail() != null && !customer.getEmail().equals(current.getEmail())) {
+                if (idsByEmail.putIfAbsent(customer.getEmail(), id) != null) {
+                    throw new DuplicateKeyException(
+                            "email [%s] already taken".formatted(customer.getEmail()));
+                }
+                idsByEmail.remove(current.getEmail(), id);
+                updated.setEmail(customer.getEmail());
+            }
+            updated.setVersion(current.getVersion() + 1);
+            return updated;
+        });
+        customer.clearModifiedFields();
     }
 
     @Override
     public Optional<Customer> selectUserByEmail(String email) {
-        return customers
-                .stream()
-                .filter(customer -> customer.getUsername().equals(email))
-                .findFirst();
+        Integer id = idsByEmail.get(email);
+        return id == null ? Optional.empty() : selectCustomerById(id);
+    }
+
+    /**
+     * Closer matches leave fewer characters around the needle.
+     */
+    private static int lengthAround(String value, String needle) {
+        return value.toLowerCase(Locale.ROOT).contains(needle)
+                ? value.length() - needle.length()
+                : Integer.MAX_VALUE;
+    }
+
+    private static Customer copyOf(Customer customer) {
+        Customer copy = new Customer(
+                customer.getId(),
+                customer.getName(),
+                customer.getEmail(),
+                customer.getPassword(),
+                customer.getAge(),
+                customer.getGender()
+        );
+        copy.setVersion(customer.getVersion());
+        return copy;
+    }
+
+    private static CustomerDTO toDTO(Customer customer) {
+        return new CustomerDTO(
+                customer.getId(),
+                customer.getName(),
+                customer.getEmail(),
+                customer.getGender(),
+                customer.getAge()
+        );
     }
 }
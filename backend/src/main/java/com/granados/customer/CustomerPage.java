@@ -0,0 +1,9 @@
+package com.granados.customer;
+
+import java.util.List;
+
+public record CustomerPage(
+        List<CustomerDTO> customers,
+        String nextCursor
+) {
+}
@@ -0,0 +1,31 @@
+package com.granados.customer;
+
+/**
+ * Filter, sort and keyset position of a customer page. Null filters match
+ * every customer.
+ */
+public record CustomerQuery(
+        Gender gender,
+        Integer minAge,
+        Integer maxAge,
+        CustomerSort sort,
+        boolean descending,
+        After after,
+        int limit
+) {
+
+    /**
+     * Position of the last customer of the previous page: its id and the
+     * value of the sort key, only the one matching {@link #sort()} is set.
+     */
+    public record After(Integer id, String name, Integer age) {
+    }
+
+    public static CustomerQuery all(int limit) {
+        return new CustomerQuery(null, null, null, CustomerSort.ID, false, null, limit);
+    }
+
+    public CustomerQuery page(After after, int limit) {
+        return new CustomerQuery(gender, minAge, maxAge, sort, descending, after, limit);
+    }
+}
@@ -0,0 +1,15 @@
+package com.granados.customer;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Repository fragment for specification queries that project straight into
+ * {@link CustomerDTO} and fetch a single keyset page, without the count query
+ * a {@code Page} would run.
+ */
+public interface CustomerQueryRepository {
+
+    List<CustomerDTO> findCustomerDTOs(Specification<Customer> specification, CustomerQuery query);
+}
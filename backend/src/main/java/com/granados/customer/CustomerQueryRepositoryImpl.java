@@ -0,0 +1,53 @@
+package com.granados.customer;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class CustomerQueryRepositoryImpl implements CustomerQueryRepository {
+
+    private final EntityManager entityManager;
+
+    CustomerQueryRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<CustomerDTO> findCustomerDTOs(Specification<Customer> specification, CustomerQuery query) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CustomerDTO> criteriaQuery = cb.createQuery(CustomerDTO.class);
+        Root<Customer> root = criteriaQuery.from(Customer.class);
+
+        criteriaQuery.select(cb.construct(
+                CustomerDTO.class,
+                root.get("id"),
+                root.get("name"),
+                root.get("email"),
+                root.get("gender"),
+                root.get("age")
+        ));
+        criteriaQuery.where(specification.toPredicate(root, criteriaQuery, cb));
+
+        List<Order> order = new ArrayList<>(2);
+        if (query.sort() != CustomerSort.ID) {
+            order.add(order(cb, root.get(query.sort().getColumn()), query.descending()));
+        }
+        order.add(order(cb, root.get("id"), query.descending()));
+        criteriaQuery.orderBy(order);
+
+        return entityManager.createQuery(criteriaQuery)
+                .setMaxResults(query.limit())
+                .getResultList();
+    }
+
+    private static Order order(CriteriaBuilder cb, Path<?> path, boolean descending) {
+        return descending ? cb.desc(path) : cb.asc(path);
+    }
+}
@@ -1,12 +1,92 @@
 package com.granados.customer;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
-public interface CustomerRepository extends JpaRepository<Customer, Integer> {
+public interface CustomerRepository extends JpaRepository<Customer, Integer>, CustomerQueryRepository {
 
     boolean existsCustomerByEmail(String email);
     boolean existsCustomerById(Integer id);
     Optional<Customer> findCustomerByEmail(String email);
+
+    @Query("""
+            SELECT new com.granados.customer.CustomerDTO(c.id, c.name, c.email, c.gender, c.age)
+            FROM Customer c
+            """)
+    List<CustomerDTO> findAllCustomerDTOs();
+
+    @Query("""
+            SELECT new com.granados.customer.CustomerDTO(c.id, c.name, c.email, c.gender, c.age)
+            FROM Customer c
+            WHERE c.id > :id
+            ORDER BY c.id
+            """)
+    List<CustomerDTO> findCustomerDTOsAfter(@Param("id") Integer id, Pageable pageable);
+
+    @Query("""
+            SELECT new com.granados.customer.CustomerDTO(c.id, c.name, c.email, c.gender, c.age)
+            FROM Customer c
+            WHERE c.id = :id
+            """)
+    Optional<CustomerDTO> findCustomerDTOById(@Param("id") Integer id);
+
+    @Query("""
+            SELECT new com.granados.customer.VersionedCustomerDTO(c.id, c.name, c.email, c.gender, c.age, c.version)
+            FROM Customer c
+            WHERE c.id = :id
+            """)
+    Optional<VersionedCustomerDTO> findVersionedCustomerDTOById(@Param("id") Integer id);
+
+    @Query("""
+            SELECT new com.granados.customer.CustomerDTO(c.id, c.name, c.email, c.gender, c.age)
+            FROM Customer c
+            WHERE c.name ILIKE :pattern OR c.email ILIKE :pattern
+            ORDER BY greatest(cast(function('word_similarity', :query, c.name) AS Float),
+                              cast(function('word_similarity', :query, c.email) AS Float)) DESC, c.id
+            LIMIT :limit
+            OFFSET :offset
+            """)
+    List<CustomerDTO> searchCustomers(@Param("query") String query,
+                                      @Param("pattern") String pattern,
+                                      @Param("offset") int offset,
+                                      @Param("limit") int limit);
+
+    @Query("SELECT c.email FROM Customer c WHERE c.email IN :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    @Transactional
+    @Query(value = """
+            INSERT INTO customer(name, email, password, age, gender)
+            VALUES (:name, :email, :password, :age, :gender)
+            ON CONFLICT (email) DO NOTHING
+            RETURNING id
+            """, nativeQuery = true)
+    Optional<Integer> insertCustomerIfEmailAbsent(@Param("name") String name,
+                                                  @Param("email") String email,
+                                                  @Param("password") String password,
+                                                  @Param("age") Integer age,
+                                                  @Param("gender") String gender);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Customer c WHERE c.id = :id")
+    int deleteCustomerById(@Param("id") Integer id);
+
+    @Transactional
+    @Query(value = """
+            DELETE
+            FROM customer
+            WHERE id IN (:ids)
+            RETURNING id
+            """, nativeQuery = true)
+    List<Integer> deleteCustomersByIds(@Param("ids") Collection<Integer> ids);
 }
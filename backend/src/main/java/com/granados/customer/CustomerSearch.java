@@ -0,0 +1,16 @@
+package com.granados.customer;
+
+final class CustomerSearch {
+
+    private CustomerSearch() {
+    }
+
+    /**
+     * Escapes LIKE wildcards so the query matches literally.
+     */
+    static String escapeLike(String query) {
+        return query.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
@@ -0,0 +1,11 @@
+package com.granados.customer;
+
+import java.util.List;
+
+public record CustomerSearchPage(
+        List<CustomerDTO> customers,
+        int page,
+        int size,
+        boolean hasNext
+) {
+}
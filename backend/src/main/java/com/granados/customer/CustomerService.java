@@ -4,50 +4,142 @@ import com.granados.exception.DuplicateResourceException;
 import com.granados.exception.RequestValidationException;
 import com.granados.exception.ResourceNotFoundException;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class CustomerService {
 
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int MAX_BULK_DELETE_SIZE = 10_000;
+    static final int MIN_SEARCH_LENGTH = 3;
+    static final int MAX_SEARCH_LENGTH = 100;
+    static final int MAX_SEARCH_PAGE_SIZE = 100;
+    static final int MAX_SEARCH_RESULTS = 10_000;
+
     private final CustomerDao customerDAO;
-    private final CustomerDTOMapper customerDTOMapper;
     private final PasswordEncoder passwordEncoder;
-
-    public CustomerService(@Qualifier("jdbc") CustomerDao customerDAO, CustomerDTOMapper customerDTOMapper, PasswordEncoder passwordEncoder) {
+    private final ApplicationEventPublisher eventPublisher;
+    private final CustomerDTOCache customerDTOCache;
+    private final CustomerChangeCountJDBCDataAccessService changeCountDataAccessService;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public CustomerService(@Qualifier("jdbc") CustomerDao customerDAO,
+                           PasswordEncoder passwordEncoder,
+                           ApplicationEventPublisher eventPublisher,
+                           CustomerDTOCache customerDTOCache,
+                           CustomerChangeCountJDBCDataAccessService changeCountDataAccessService,
+                           PlatformTransactionManager transactionManager) {
         this.customerDAO = customerDAO;
-        this.customerDTOMapper = customerDTOMapper;
         this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
+        this.customerDTOCache = customerDTOCache;
+        this.changeCountDataAccessService = changeCountDataAccessService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
+    @Transactional(readOnly = true)
     public List<CustomerDTO> getAllCustomers() {
-        return customerDAO.selectAllCustomers()
-                .stream()
-                .map(customerDTOMapper)
-                .collect(Collectors.toList());
+        return customerDAO.selectAllCustomerDTOs();
+    }
+
+    /**
+     * Grows whenever customers are created, updated or deleted. Read it before
+     * the customers it stands for: they may then be newer than the count, but
+     * never older.
+     */
+    @Transactional(readOnly = true)
+    public long getCustomersChangeCount() {
+        return changeCountDataAccessService.selectChangeCount();
+    }
+
+    @Transactional(readOnly = true)
+    public CustomerPage getCustomersPage(CustomerQuery query, String cursor) {
+        int limit = query.limit();
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new RequestValidationException(
+                    "limit must be between 1 and %s".formatted(MAX_PAGE_SIZE));
+        }
+        if (query.minAge() != null && query.maxAge() != null && query.minAge() > query.maxAge()) {
+            throw new RequestValidationException(
+                    "minAge [%s] is greater than maxAge [%s]".formatted(query.minAge(), query.maxAge()));
+        }
+
+        // fetch one extra row to know whether there is a next page
+        CustomerQuery.After after = CustomerCursor.decode(cursor, query.sort());
+        List<CustomerDTO> customers = customerDAO.selectCustomerDTOs(query.page(after, limit + 1));
+
+        if (customers.size() <= limit) {
+            return new CustomerPage(customers, null);
+        }
+
+        List<CustomerDTO> page = customers.subList(0, limit);
+        return new CustomerPage(page, CustomerCursor.encode(query.sort(), page.get(limit - 1)));
     }
 
     public CustomerDTO getCustomer(Integer customerId) {
-        return customerDAO.selectCustomerById(customerId)
-                .map(customerDTOMapper)
+        return getVersionedCustomer(customerId).customer();
+    }
+
+    /**
+     * Not transactional on purpose: a cache hit must not even open a
+     * transaction, which would take a connection. Only a miss reads the
+     * customer, in a read-only transaction so it may go to the replica.
+     */
+    public VersionedCustomerDTO getVersionedCustomer(Integer customerId) {
+        return customerDTOCache.get(customerId, id -> readOnlyTransaction.execute(
+                        status -> customerDAO.selectVersionedCustomerDTOById(id)))
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "customers with id [%s] does not exists".formatted(customerId)
                 ));
     }
 
-    public void addCustomer(
-            CustomerRegistrationRequest customerRegistrationRequest) {
-        //check if emails exists
-        String email = customerRegistrationRequest.email();
-        if (customerDAO.existsCustomerWithEmail(email)) {
-            throw new DuplicateResourceException(
-                    "email already taken".formatted(email));
+    @Transactional(readOnly = true)
+    public CustomerSearchPage searchCustomers(String query, int page, int size) {
+        String trimmed = query == null ? "" : query.trim();
+        if (trimmed.length() < MIN_SEARCH_LENGTH || trimmed.length() > MAX_SEARCH_LENGTH) {
+            throw new RequestValidationException("q must be between %s and %s characters"
+                    .formatted(MIN_SEARCH_LENGTH, MAX_SEARCH_LENGTH));
+        }
+        if (page < 0) {
+            throw new RequestValidationException("page must not be negative");
         }
+        if (size < 1 || size > MAX_SEARCH_PAGE_SIZE) {
+            throw new RequestValidationException(
+                    "size must be between 1 and %s".formatted(MAX_SEARCH_PAGE_SIZE));
+        }
+        // every match is ranked before paging, so deep pages are not offered
+        if ((long) page * size + size > MAX_SEARCH_RESULTS) {
+            throw new RequestValidationException(
+                    "only the first %s results can be paged".formatted(MAX_SEARCH_RESULTS));
+        }
+
+        // fetch one extra row to know whether there is a next page
+        List<CustomerDTO> customers = customerDAO.searchCustomers(trimmed, page * size, size + 1);
 
-        //add
+        boolean hasNext = customers.size() > size;
+        return new CustomerSearchPage(
+                hasNext ? customers.subList(0, size) : customers,
+                page,
+                size,
+                hasNext
+        );
+    }
+
+    public Integer addCustomer(
+            CustomerRegistrationRequest customerRegistrationRequest) {
         Customer customer = new Customer(
                 customerRegistrationRequest.name(),
                 customerRegistrationRequest.email(),
@@ -56,19 +148,47 @@ public class CustomerService {
                 customerRegistrationRequest.gender()
         );
 
-        customerDAO.insertCustomer(customer);
-
+        // the insert is skipped by the database when the email is already taken
+        Integer customerId = customerDAO.insertCustomer(customer)
+                .orElseThrow(() -> new DuplicateResourceException("email already taken"));
+        eventPublisher.publishEvent(CustomerChangeEvent.created(customerId));
+        return customerId;
     }
 
     public void deleteCustomerById(Integer customerId){
-        if(!customerDAO.existsCustomerWithId(customerId)){
+        if(!customerDAO.deleteCustomerById(customerId)){
             throw new ResourceNotFoundException(
                     "customer with id [%s] not found".formatted(customerId)
             );
         }
-        customerDAO.deleteCustomerById(customerId);
+        eventPublisher.publishEvent(CustomerChangeEvent.deleted(List.of(customerId)));
+    }
+
+    public CustomerBulkDeleteResponse deleteCustomersByIds(List<Integer> customerIds) {
+        if (customerIds == null || customerIds.isEmpty()
+                || customerIds.stream().anyMatch(Objects::isNull)) {
+            throw new RequestValidationException("ids must be a non empty list of customer ids");
+        }
+        if (customerIds.size() > MAX_BULK_DELETE_SIZE) {
+            throw new RequestValidationException(
+                    "at most %s customers can be deleted at once".formatted(MAX_BULK_DELETE_SIZE));
+        }
+
+        Set<Integer> requested = new LinkedHashSet<>(customerIds);
+        List<Integer> deleted = customerDAO.deleteCustomersByIds(requested);
+        if (!deleted.isEmpty()) {
+            eventPublisher.publishEvent(CustomerChangeEvent.deleted(deleted));
+        }
+
+        Set<Integer> deletedIds = new HashSet<>(deleted);
+        List<Integer> notFound = requested.stream()
+                .filter(id -> !deletedIds.contains(id))
+                .collect(Collectors.toList());
+
+        return new CustomerBulkDeleteResponse(deleted, notFound);
     }
 
+    @Transactional
     public void updateCustomer(Integer customerId, CustomerUpdateRequest updateRequest) {
         Customer customer = customerDAO.selectCustomerById(customerId)
                 .orElseThrow(() -> new ResourceNotFoundException(
@@ -105,5 +225,6 @@ public class CustomerService {
         }
 
         customerDAO.updateCustomer(customer);
+        eventPublisher.publishEvent(CustomerChangeEvent.updated(customerId));
     }
 }
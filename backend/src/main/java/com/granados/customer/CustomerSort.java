@@ -0,0 +1,24 @@
+package com.granados.customer;
+
+/**
+ * Sort orders for customer pages. Ties are broken by id, which also makes the
+ * sort key plus id a unique keyset position.
+ */
+public enum CustomerSort {
+    ID("id"),
+    NAME("name"),
+    AGE("age");
+
+    private final String column;
+
+    CustomerSort(String column) {
+        this.column = column;
+    }
+
+    /**
+     * Column and JPA attribute name, both are the same for customer.
+     */
+    public String getColumn() {
+        return column;
+    }
+}
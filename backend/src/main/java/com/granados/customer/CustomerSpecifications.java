@@ -0,0 +1,62 @@
+package com.granados.customer;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the JPA counterpart of the JDBC customer query: the filters plus the
+ * keyset position, expanded to {@code key > ? OR (key = ? AND id > ?)}.
+ */
+final class CustomerSpecifications {
+
+    private CustomerSpecifications() {
+    }
+
+    static Specification<Customer> matching(CustomerQuery query) {
+        return (root, criteriaQuery, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (query.gender() != null) {
+                predicates.add(cb.equal(root.get("gender"), query.gender()));
+            }
+            if (query.minAge() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("age"), query.minAge()));
+            }
+            if (query.maxAge() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("age"), query.maxAge()));
+            }
+            if (query.after() != null) {
+                predicates.add(after(root, cb, query));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    private static Predicate after(Root<Customer> root, CriteriaBuilder cb, CustomerQuery query) {
+        CustomerQuery.After after = query.after();
+        Predicate idAfter = beyond(cb, root.get("id"), after.id(), query.descending());
+        return switch (query.sort()) {
+            case ID -> idAfter;
+            case NAME -> keyAfter(cb, root.get("name"), after.name(), idAfter, query.descending());
+            case AGE -> keyAfter(cb, root.get("age"), after.age(), idAfter, query.descending());
+        };
+    }
+
+    private static <T extends Comparable<? super T>> Predicate keyAfter(
+            CriteriaBuilder cb, Path<T> key, T value, Predicate idAfter, boolean descending) {
+        return cb.or(
+                beyond(cb, key, value, descending),
+                cb.and(cb.equal(key, value), idAfter)
+        );
+    }
+
+    private static <T extends Comparable<? super T>> Predicate beyond(
+            CriteriaBuilder cb, Path<T> key, T value, boolean descending) {
+        return descending ? cb.lessThan(key, value) : cb.greaterThan(key, value);
+    }
+}
@@ -0,0 +1,19 @@
+package com.granados.customer;
+
+import java.util.List;
+import java.util.Map;
+
+public record CustomerStats(
+        long total,
+        Map<Gender, Long> genders,
+        List<AgeBucket> ageBuckets
+) {
+
+    public record AgeBucket(
+            int fromAge,
+            int toAge,
+            long total,
+            Map<Gender, Long> genders
+    ) {
+    }
+}
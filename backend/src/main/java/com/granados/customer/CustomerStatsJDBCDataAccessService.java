@@ -0,0 +1,86 @@
+package com.granados.customer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Reads the customer_stats summary kept exact by triggers on customer, see
+ * V5__Add_Customer_Stats.sql. It holds at most one row per gender, age bucket
+ * and shard, summed on read, so reading it does not depend on the size of the
+ * customer table.
+ */
+@Repository
+public class CustomerStatsJDBCDataAccessService {
+
+    static final int AGE_BUCKET_WIDTH = 10;
+
+    record Row(Gender gender, int ageBucket, long count) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CustomerStatsJDBCDataAccessService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<Row> selectCustomerStats() {
+        var sql = """
+                SELECT gender, age_bucket, sum(count)
+                FROM customer_stats
+                GROUP BY gender, age_bucket
+                HAVING sum(count) <> 0
+                ORDER BY age_bucket, gender
+                """;
+
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new Row(
+                Gender.valueOf(rs.getString(1)),
+                rs.getInt(2),
+                rs.getLong(3)
+        ));
+    }
+
+    /**
+     * Compares the summary with a full count. Both are read by one statement,
+     * so they come from the same snapshot and no lock is needed.
+     */
+    public boolean customerStatsDrifted() {
+        var sql = """
+                WITH actual AS (
+                  SELECT gender, age / 10 * 10 AS age_bucket, count(*) AS count
+                  FROM customer
+                  GROUP BY 1, 2
+                ), summary AS (
+                  SELECT gender, age_bucket, sum(count)
+                  FROM customer_stats
+                  GROUP BY gender, age_bucket
+                  HAVING sum(count) <> 0
+                )
+                SELECT EXISTS (
+                  (SELECT * FROM actual EXCEPT SELECT * FROM summary)
+                  UNION ALL
+                  (SELECT * FROM summary EXCEPT SELECT * FROM actual)
+                )
+                """;
+
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, Boolean.class));
+    }
+
+    /**
+     * Rebuilds the summary from a full count. Writers to customer wait on the
+     * summary lock until this commits, so only call it after drift is found.
+     */
+    @Transactional
+    public void rebuildCustomerStats() {
+        jdbcTemplate.execute("LOCK TABLE customer_stats IN EXCLUSIVE MODE");
+        jdbcTemplate.update("DELETE FROM customer_stats");
+        jdbcTemplate.update("""
+                INSERT INTO customer_stats(gender, age_bucket, shard, count)
+                SELECT gender, age / 10 * 10, 0, count(*)
+                FROM customer
+                GROUP BY 1, 2
+                """);
+    }
+}
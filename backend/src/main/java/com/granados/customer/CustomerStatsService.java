@@ -0,0 +1,79 @@
+package com.granados.customer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class CustomerStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerStatsService.class);
+
+    private final CustomerStatsJDBCDataAccessService customerStatsDataAccessService;
+
+    public CustomerStatsService(CustomerStatsJDBCDataAccessService customerStatsDataAccessService) {
+        this.customerStatsDataAccessService = customerStatsDataAccessService;
+    }
+
+    public CustomerStats getCustomerStats() {
+        long total = 0;
+        Map<Gender, Long> genders = new EnumMap<>(Gender.class);
+        List<CustomerStats.AgeBucket> ageBuckets = new ArrayList<>();
+
+        Map<Gender, Long> bucketGenders = null;
+        int bucket = -1;
+        long bucketTotal = 0;
+        // rows are ordered by age bucket
+        for (CustomerStatsJDBCDataAccessService.Row row : customerStatsDataAccessService.selectCustomerStats()) {
+            if (row.ageBucket() != bucket) {
+                if (bucketGenders != null) {
+                    ageBuckets.add(ageBucket(bucket, bucketTotal, bucketGenders));
+                }
+                bucket = row.ageBucket();
+                bucketTotal = 0;
+                bucketGenders = new EnumMap<>(Gender.class);
+            }
+            total += row.count();
+            bucketTotal += row.count();
+            genders.merge(row.gender(), row.count(), Long::sum);
+            bucketGenders.merge(row.gender(), row.count(), Long::sum);
+        }
+        if (bucketGenders != null) {
+            ageBuckets.add(ageBucket(bucket, bucketTotal, bucketGenders));
+        }
+
+        return new CustomerStats(total, genders, ageBuckets);
+    }
+
+    /**
+     * The triggers keep the summary exact; drift only appears when they are
+     * bypassed, e.g. a manual load with triggers disabled.
+     *
+     * @return whether the summary had to be rebuilt
+     */
+    @Scheduled(fixedDelayString = "${customer.stats.reconcile-interval:PT1H}",
+            initialDelayString = "${customer.stats.reconcile-interval:PT1H}")
+    public boolean reconcileCustomerStats() {
+        if (!customerStatsDataAccessService.customerStatsDrifted()) {
+            return false;
+        }
+        log.warn("customer_stats drifted from the customer table, rebuilding it");
+        customerStatsDataAccessService.rebuildCustomerStats();
+        return true;
+    }
+
+    private static CustomerStats.AgeBucket ageBucket(int fromAge, long total, Map<Gender, Long> genders) {
+        return new CustomerStats.AgeBucket(
+                fromAge,
+                fromAge + CustomerStatsJDBCDataAccessService.AGE_BUCKET_WIDTH - 1,
+                total,
+                genders
+        );
+    }
+}
@@ -0,0 +1,184 @@
+package com.granados.customer;
+
+import com.granados.exception.RequestValidationException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Sorted in-memory index for type-ahead suggestions. Every customer is keyed
+ * by its normalized full name, each later word of the name and its email, with
+ * the id appended so keys stay unique; a prefix lookup is a range scan.
+ * <p>
+ * Built at startup from the DTO projection and kept current from
+ * {@link CustomerChangeEvent}s, which the change feed delivers in commit order
+ * for every statement, bulk loads included. Ids are not assigned in commit
+ * order, so there is no scanning past the highest indexed id: rows the feed
+ * missed are caught by the rebuild that follows a RESET and by a periodic one.
+ * A rebuild fills a new index while the current one keeps answering, swaps it
+ * in, then reloads the customers changed meanwhile.
+ */
+@Component
+public class CustomerSuggestionIndex {
+
+    static final int MAX_SUGGESTIONS = 50;
+    private static final int LOAD_BATCH_SIZE = 10_000;
+    private static final char ID_SEPARATOR = '\0';
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private final CustomerDao customerDao;
+    private final Object rebuildLock = new Object();
+    private volatile Index index = new Index();
+    private Set<Integer> changedDuringRebuild;
+
+    public CustomerSuggestionIndex(@Qualifier("jdbc") CustomerDao customerDao) {
+        this.customerDao = customerDao;
+    }
+
+    public List<CustomerSuggestion> suggest(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new RequestValidationException("prefix must not be blank");
+        }
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new RequestValidationException(
+                    "limit must be between 1 and %s".formatted(MAX_SUGGESTIONS));
+        }
+
+        String from = normalize(prefix);
+        Set<CustomerSuggestion> matches = new LinkedHashSet<>();
+        for (CustomerSuggestion suggestion : index.suggestions.subMap(from, true, from + Character.MAX_VALUE, false).values()) {
+            if (matches.add(suggestion) && matches.size() == limit) {
+                break;
+            }
+        }
+        return new ArrayList<>(matches);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${customer.suggest.rebuild-interval:PT10M}",
+            initialDelayString = "${customer.suggest.rebuild-interval:PT10M}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                changedDuringRebuild = new HashSet<>();
+            }
+            Index rebuilt = new Index();
+            int afterId = 0;
+            List<CustomerDTO> batch;
+            do {
+                batch = customerDao.selectCustomerDTOsAfter(afterId, LOAD_BATCH_SIZE);
+                batch.forEach(rebuilt::index);
+                if (!batch.isEmpty()) {
+                    afterId = batch.get(batch.size() - 1).id();
+                }
+            } while (batch.size() == LOAD_BATCH_SIZE);
+
+            Set<Integer> changed;
+            synchronized (this) {
+                index = rebuilt;
+                changed = changedDuringRebuild;
+                changedDuringRebuild = null;
+            }
+            // the batches may have read them before their change committed
+            changed.forEach(this::reload);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChange(CustomerChangeEvent event) {
+        switch (event.operation()) {
+            case CREATED, UPDATED -> event.customerIds().forEach(id -> {
+                recordChange(id);
+                reload(id);
+            });
+            case DELETED -> event.customerIds().forEach(id -> {
+                recordChange(id);
+                remove(id);
+            });
+            case RESET -> rebuild();
+        }
+    }
+
+    private synchronized void recordChange(Integer customerId) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(customerId);
+        }
+    }
+
+    private void reload(Integer customerId) {
+        customerDao.selectCustomerDTOById(customerId).ifPresentOrElse(this::index, () -> remove(customerId));
+    }
+
+    void index(CustomerDTO customer) {
+        index.index(customer);
+    }
+
+    void remove(Integer customerId) {
+        index.remove(customerId);
+    }
+
+    private static List<String> keysOf(CustomerSuggestion suggestion) {
+        String suffix = ID_SEPARATOR + suggestion.id().toString();
+        List<String> keys = new ArrayList<>(4);
+
+        String name = normalize(suggestion.name());
+        keys.add(name + suffix);
+        for (int i = name.indexOf(' '); i >= 0; i = name.indexOf(' ', i + 1)) {
+            keys.add(name.substring(i + 1) + suffix);
+        }
+        keys.add(normalize(suggestion.email()) + suffix);
+        return keys;
+    }
+
+    /**
+     * Lower case, accents stripped and whitespace collapsed, so "José" is
+     * suggested for "jose".
+     */
+    static String normalize(String value) {
+        String decomposed = Normalizer.normalize(value.trim(), Normalizer.Form.NFD);
+        String stripped = MARKS.matcher(decomposed).replaceAll("");
+        return SPACES.matcher(stripped).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Index {
+
+        private final NavigableMap<String, CustomerSuggestion> suggestions = new ConcurrentSkipListMap<>();
+        private final Map<Integer, List<String>> keysById = new ConcurrentHashMap<>();
+
+        void index(CustomerDTO customer) {
+            CustomerSuggestion suggestion = new CustomerSuggestion(customer.id(), customer.name(), customer.email());
+            keysById.compute(customer.id(), (id, previous) -> {
+                if (previous != null) {
+                    previous.forEach(suggestions::remove);
+                }
+                List<String> keys = keysOf(suggestion);
+                keys.forEach(key -> suggestions.put(key, suggestion));
+                return keys;
+            });
+        }
+
+        void remove(Integer customerId) {
+            keysById.computeIfPresent(customerId, (id, keys) -> {
+                keys.forEach(suggestions::remove);
+                return null;
+            });
+        }
+    }
+}
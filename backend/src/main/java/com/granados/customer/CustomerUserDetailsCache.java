@@ -0,0 +1,137 @@
+package com.granados.customer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Customers loaded for authentication, by email. Entries expire after the
+ * time to live and are dropped as soon as a {@link CustomerChangeEvent}
+ * reports their customer updated or deleted, whichever instance changed it.
+ * <p>
+ * A lookup that raced with an invalidation is not cached: callers take the
+ * {@link #generation()} before reading the database and {@link #put} only
+ * stores the customer if no invalidation happened since. Neither is one made
+ * within the replica read-your-writes window after its customer, or all
+ * customers, were invalidated: it may have read a replica that had not caught
+ * up with the change yet. Cached customers are copied in and out, callers may
+ * change what they get.
+ */
+@Component
+public class CustomerUserDetailsCache {
+
+    static final String CACHE_NAME = "customer.user-details";
+
+    private final Cache<String, Customer> customersByEmail;
+    // a customer whose email changed may be cached under the old and the new one
+    private final Map<Integer, Set<String>> emailsById = new ConcurrentHashMap<>();
+    private final Cache<Integer, Boolean> recentlyInvalidated;
+    private final long replicaLagNanos;
+    private long generation;
+    private long invalidatedAllAt;
+
+    public CustomerUserDetailsCache(MeterRegistry meterRegistry,
+                                    @Value("${customer.user-details-cache.maximum-size:10000}") long maximumSize,
+                                    @Value("${customer.user-details-cache.time-to-live:PT5M}") Duration timeToLive,
+                                    @Value("${replica.read-your-writes-window:5s}") Duration replicaLagWindow) {
+        this.customersByEmail = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .<String, Customer>evictionListener((email, customer, cause) -> {
+                    if (customer != null) {
+                        emailsById.computeIfPresent(customer.getId(), (id, emails) -> {
+                            emails.remove(email);
+                            return emails.isEmpty() ? null : emails;
+                        });
+                    }
+                })
+                .build();
+        this.replicaLagNanos = replicaLagWindow.toNanos();
+        this.invalidatedAllAt = System.nanoTime() - replicaLagNanos;
+        this.recentlyInvalidated = Caffeine.newBuilder()
+                .expireAfterWrite(replicaLagWindow)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, customersByEmail, CACHE_NAME);
+    }
+
+    public Optional<Customer> get(String email) {
+        return Optional.ofNullable(customersByEmail.getIfPresent(email))
+                .map(CustomerUserDetailsCache::copyOf);
+    }
+
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * The replica window is checked when the lookup is done rather than when
+     * it started: every lookup started inside it is turned away, along with a
+     * few started just after.
+     */
+    public synchronized void put(String email, Customer customer, long expectedGeneration) {
+        if (generation == expectedGeneration && isCacheable(customer.getId())) {
+            emailsById.computeIfAbsent(customer.getId(), id -> ConcurrentHashMap.newKeySet()).add(email);
+            customersByEmail.put(email, copyOf(customer));
+        }
+    }
+
+    private boolean isCacheable(Integer customerId) {
+        return System.nanoTime() - invalidatedAllAt >= replicaLagNanos
+                && recentlyInvalidated.getIfPresent(customerId) == null;
+    }
+
+    public synchronized void invalidate(Collection<Integer> customerIds) {
+        generation++;
+        for (Integer customerId : customerIds) {
+            recentlyInvalidated.put(customerId, Boolean.TRUE);
+            Set<String> emails = emailsById.remove(customerId);
+            if (emails != null) {
+                customersByEmail.invalidateAll(emails);
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidatedAllAt = System.nanoTime();
+        emailsById.clear();
+        customersByEmail.invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChange(CustomerChangeEvent event) {
+        switch (event.operation()) {
+            // nothing is cached for emails that did not exist
+            case CREATED -> {
+            }
+            case UPDATED, DELETED -> invalidate(event.customerIds());
+            case RESET -> invalidateAll();
+        }
+    }
+
+    private static Customer copyOf(Customer customer) {
+        Customer copy = new Customer(
+                customer.getId(),
+                customer.getName(),
+                customer.getEmail(),
+                customer.getPassword(),
+                customer.getAge(),
+                customer.getGender()
+        );
+        // tokens are issued against it
+        copy.setVersion(customer.getVersion());
+        return copy;
+    }
+}
@@ -6,19 +6,37 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+
+/**
+ * Not transactional on purpose: a cache hit must not even open a transaction,
+ * which would take a connection. Misses read through the repository's own
+ * read-only transaction.
+ */
 @Service
 public class CustomerUserDetailsService implements UserDetailsService {
 
     private final CustomerDao customerDao;
+    private final CustomerUserDetailsCache customerUserDetailsCache;
 
-    public CustomerUserDetailsService(@Qualifier("jpa") CustomerDao customerDao) {
+    public CustomerUserDetailsService(@Qualifier("jpa") CustomerDao customerDao,
+                                      CustomerUserDetailsCache customerUserDetailsCache) {
         this.customerDao = customerDao;
+        this.customerUserDetailsCache = customerUserDetailsCache;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return customerDao.selectUserByEmail(username)
+        Optional<Customer> cached = customerUserDetailsCache.get(username);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        long generation = customerUserDetailsCache.generation();
+        Customer customer = customerDao.selectUserByEmail(username)
                 .orElseThrow(() -> new UsernameNotFoundException(
                       "Username " + username + " not found"));
+        customerUserDetailsCache.put(username, customer, generation);
+        return customer;
     }
 }
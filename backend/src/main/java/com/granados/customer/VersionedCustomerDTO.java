@@ -0,0 +1,15 @@
+package com.granados.customer;
+
+/**
+ * A customer with the version of the row it was read from, which changes
+ * every time the customer is updated.
+ */
+public record VersionedCustomerDTO(
+        CustomerDTO customer,
+        long version
+) {
+
+    public VersionedCustomerDTO(Integer id, String name, String email, Gender gender, Integer age, long version) {
+        this(new CustomerDTO(id, name, email, gender, age), version);
+    }
+}
@@ -0,0 +1,23 @@
+package com.granados.datasource;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("api/v1/diagnostics/pools")
+public class ConnectionPoolController {
+
+    private final ConnectionPoolMonitor connectionPoolMonitor;
+
+    public ConnectionPoolController(ConnectionPoolMonitor connectionPoolMonitor) {
+        this.connectionPoolMonitor = connectionPoolMonitor;
+    }
+
+    @GetMapping
+    public List<ConnectionPoolStats> getPoolStats() {
+        return connectionPoolMonitor.getPoolStats();
+    }
+}
@@ -0,0 +1,181 @@
+package com.granados.datasource;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples every Hikari pool behind the application's data sources and keeps
+ * a sliding window of samples per pool for {@link PoolSizeAdvisor}. Acquire
+ * and usage timings come from the {@code hikaricp.connections.*} meters that
+ * Spring Boot binds; the recommended size is published next to them as
+ * {@code hikaricp.connections.recommended}.
+ */
+@Component
+public class ConnectionPoolMonitor {
+
+    private final List<HikariDataSource> pools;
+    private final MeterRegistry meterRegistry;
+    private final int windowSamples;
+    private final int databaseCores;
+    private final Map<String, Deque<Sample>> samplesByPool = new ConcurrentHashMap<>();
+
+    public ConnectionPoolMonitor(ObjectProvider<DataSource> dataSources,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${connection-pool.sample-interval:PT1S}") Duration sampleInterval,
+                                 @Value("${connection-pool.advice-window:PT5M}") Duration adviceWindow,
+                                 @Value("${connection-pool.database-cores:0}") int databaseCores) {
+        this.pools = dataSources.orderedStream()
+                .map(dataSource -> DataSourceUnwrapper.unwrap(
+                        dataSource, HikariConfigMXBean.class, HikariDataSource.class))
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        this.meterRegistry = meterRegistry;
+        this.windowSamples = (int) Math.max(2, adviceWindow.toMillis() / Math.max(1, sampleInterval.toMillis()));
+        // without a configured value, assume the database runs on a machine like this one
+        this.databaseCores = databaseCores > 0 ? databaseCores : Runtime.getRuntime().availableProcessors();
+
+        for (HikariDataSource pool : pools) {
+            samplesByPool.put(pool.getPoolName(), new ArrayDeque<>());
+            Gauge.builder("hikaricp.connections.recommended", () -> advise(pool).recommendedSize())
+                    .description("Maximum pool size recommended from observed demand")
+                    .tag("pool", pool.getPoolName())
+                    .register(meterRegistry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${connection-pool.sample-interval:PT1S}")
+    public void sample() {
+        for (HikariDataSource pool : pools) {
+            HikariPoolMXBean mxBean = pool.getHikariPoolMXBean();
+            if (mxBean == null) {
+                // the pool starts with the first connection
+                continue;
+            }
+            Timer usage = timer("hikaricp.connections.usage", pool);
+            Sample sample = new Sample(
+                    System.nanoTime(),
+                    mxBean.getActiveConnections(),
+                    mxBean.getThreadsAwaitingConnection(),
+                    usage == null ? 0 : usage.count(),
+                    usage == null ? 0 : usage.totalTime(TimeUnit.MILLISECONDS),
+                    timeouts(pool)
+            );
+            Deque<Sample> samples = samplesByPool.get(pool.getPoolName());
+            synchronized (samples) {
+                samples.addLast(sample);
+                while (samples.size() > windowSamples) {
+                    samples.removeFirst();
+                }
+            }
+        }
+    }
+
+    public List<ConnectionPoolStats> getPoolStats() {
+        return pools.stream()
+                .map(this::stats)
+                .toList();
+    }
+
+    private ConnectionPoolStats stats(HikariDataSource pool) {
+        HikariPoolMXBean mxBean = pool.getHikariPoolMXBean();
+        return new ConnectionPoolStats(
+                pool.getPoolName(),
+                mxBean == null ? 0 : mxBean.getActiveConnections(),
+                mxBean == null ? 0 : mxBean.getIdleConnections(),
+                mxBean == null ? 0 : mxBean.getThreadsAwaitingConnection(),
+                mxBean == null ? 0 : mxBean.getTotalConnections(),
+                pool.getMaximumPoolSize(),
+                pool.getMinimumIdle(),
+                timeouts(pool),
+                timing(timer("hikaricp.connections.acquire", pool)),
+                timing(timer("hikaricp.connections.usage", pool)),
+                pool.getLeakDetectionThreshold(),
+                advise(pool)
+        );
+    }
+
+    private PoolSizeAdvice advise(HikariDataSource pool) {
+        return PoolSizeAdvisor.advise(window(pool), pool.getMaximumPoolSize(), databaseCores);
+    }
+
+    private PoolUsageWindow window(HikariDataSource pool) {
+        Deque<Sample> samples = samplesByPool.get(pool.getPoolName());
+        synchronized (samples) {
+            if (samples.isEmpty()) {
+                return new PoolUsageWindow(Duration.ZERO, 0, 0, 0, 0, 0, 0);
+            }
+            Sample first = samples.getFirst();
+            Sample last = samples.getLast();
+            int peakActive = 0;
+            int peakPending = 0;
+            for (Sample sample : samples) {
+                peakActive = Math.max(peakActive, sample.active());
+                peakPending = Math.max(peakPending, sample.pending());
+            }
+            return new PoolUsageWindow(
+                    Duration.ofNanos(last.nanoTime() - first.nanoTime()),
+                    samples.size(),
+                    peakActive,
+                    peakPending,
+                    last.usageCount() - first.usageCount(),
+                    last.usageMillis() - first.usageMillis(),
+                    last.timeouts() - first.timeouts()
+            );
+        }
+    }
+
+    private Timer timer(String name, HikariDataSource pool) {
+        return meterRegistry.find(name).tag("pool", pool.getPoolName()).timer();
+    }
+
+    private long timeouts(HikariDataSource pool) {
+        Counter counter = meterRegistry.find("hikaricp.connections.timeout")
+                .tag("pool", pool.getPoolName())
+                .counter();
+        return counter == null ? 0 : (long) counter.count();
+    }
+
+    private static ConnectionPoolStats.Timing timing(Timer timer) {
+        if (timer == null) {
+            return new ConnectionPoolStats.Timing(0, 0, 0, Map.of());
+        }
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            percentiles.put("p" + Math.round(value.percentile() * 100), value.value(TimeUnit.MILLISECONDS));
+        }
+        return new ConnectionPoolStats.Timing(
+                snapshot.count(),
+                snapshot.mean(TimeUnit.MILLISECONDS),
+                snapshot.max(TimeUnit.MILLISECONDS),
+                percentiles
+        );
+    }
+
+    private record Sample(long nanoTime, int active, int pending, long usageCount, double usageMillis, long timeouts) {
+    }
+}
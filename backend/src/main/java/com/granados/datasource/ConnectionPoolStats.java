@@ -0,0 +1,26 @@
+package com.granados.datasource;
+
+import java.util.Map;
+
+/**
+ * Current state of one Hikari pool. Timings are in milliseconds; percentiles
+ * are keyed {@code p50}, {@code p95}, ...
+ */
+public record ConnectionPoolStats(
+        String pool,
+        int active,
+        int idle,
+        int pending,
+        int total,
+        int maximumPoolSize,
+        int minimumIdle,
+        long timeouts,
+        Timing acquire,
+        Timing usage,
+        long leakDetectionThresholdMillis,
+        PoolSizeAdvice advice
+) {
+
+    public record Timing(long count, double meanMillis, double maxMillis, Map<String, Double> percentiles) {
+    }
+}
@@ -0,0 +1,24 @@
+package com.granados.datasource;
+
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+/**
+ * Migrations that build indexes CONCURRENTLY wait for every open transaction
+ * to finish, including the one Flyway keeps open on its own connection for the
+ * transactional Postgres lock. The session-level advisory lock is used instead.
+ */
+@Configuration
+public class FlywayConfig {
+
+    private static final Map<String, String> NON_TRANSACTIONAL_LOCK =
+            Map.of("flyway.postgresql.transactional.lock", "false");
+
+    @Bean
+    public FlywayConfigurationCustomizer nonTransactionalLockCustomizer() {
+        return configuration -> configuration.configuration(NON_TRANSACTIONAL_LOCK);
+    }
+}
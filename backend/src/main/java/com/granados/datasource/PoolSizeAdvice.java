@@ -0,0 +1,10 @@
+package com.granados.datasource;
+
+public record PoolSizeAdvice(
+        int currentSize,
+        int recommendedSize,
+        double averageInUse,
+        int peakDemand,
+        String reason
+) {
+}
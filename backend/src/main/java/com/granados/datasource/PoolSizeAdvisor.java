@@ -0,0 +1,51 @@
+package com.granados.datasource;
+
+/**
+ * Recommends a maximum pool size from observed demand. The average number of
+ * connections in use follows Little's law, connection-seconds held divided by
+ * the window; peak demand is the most connections that were active and
+ * waiting at once in a sample, or more than the whole pool if an acquisition
+ * timed out. The larger of both, plus headroom, is capped at the usual
+ * {@code cores * 2 + 1} guideline: past that a bigger pool only queues work
+ * inside the database instead of in the pool.
+ */
+final class PoolSizeAdvisor {
+
+    static final double HEADROOM = 1.2;
+    static final int MIN_POOL_SIZE = 2;
+
+    private PoolSizeAdvisor() {
+    }
+
+    static PoolSizeAdvice advise(PoolUsageWindow window, int currentSize, int databaseCores) {
+        double seconds = window.length().toNanos() / 1_000_000_000.0;
+        if (window.samples() < 2 || seconds <= 0) {
+            return new PoolSizeAdvice(currentSize, currentSize, 0, 0, "not enough samples yet");
+        }
+
+        double averageInUse = window.usageMillis() / 1000.0 / seconds;
+        int peakDemand = window.peakActive() + window.peakPending();
+        if (window.timeouts() > 0) {
+            peakDemand = Math.max(peakDemand, currentSize + 1);
+        }
+        int needed = Math.max(MIN_POOL_SIZE, (int) Math.ceil(Math.max(averageInUse, peakDemand) * HEADROOM));
+        int ceiling = databaseCores * 2 + 1;
+
+        if (needed > ceiling) {
+            return new PoolSizeAdvice(currentSize, ceiling, averageInUse, peakDemand,
+                    ("demand of %s connections is above the %s the database serves efficiently, "
+                            + "shorten how long requests hold connections").formatted(needed, ceiling));
+        }
+        if (needed > currentSize) {
+            return new PoolSizeAdvice(currentSize, needed, averageInUse, peakDemand,
+                    "pool is undersized, %s acquisitions timed out and demand peaked at %s"
+                            .formatted(window.timeouts(), peakDemand));
+        }
+        if (needed < currentSize) {
+            return new PoolSizeAdvice(currentSize, needed, averageInUse, peakDemand,
+                    "pool is oversized, demand peaked at %s".formatted(peakDemand));
+        }
+        return new PoolSizeAdvice(currentSize, currentSize, averageInUse, peakDemand,
+                "pool size matches demand");
+    }
+}
@@ -0,0 +1,18 @@
+package com.granados.datasource;
+
+import java.time.Duration;
+
+/**
+ * What a pool went through over the advice window: peaks of the sampled
+ * gauges, and how many connections were handed out and for how long.
+ */
+record PoolUsageWindow(
+        Duration length,
+        int samples,
+        int peakActive,
+        int peakPending,
+        long usageCount,
+        double usageMillis,
+        long timeouts
+) {
+}
@@ -0,0 +1,78 @@
+package com.granados.datasource;
+
+import com.granados.jwt.JWTUtil;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Runs ahead of the security filters. A request whose token subject wrote
+ * within the read-your-writes window is pinned to the primary, including its
+ * user lookup. After a successful mutating request the subjects of the
+ * request token and of any token issued in the response are recorded.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private static final Set<String> SAFE_METHODS = Set.of(
+            HttpMethod.GET.name(), HttpMethod.HEAD.name(), HttpMethod.OPTIONS.name()
+    );
+
+    private final ReadYourWritesTracker tracker;
+    private final JWTUtil jwtUtil;
+
+    public ReadYourWritesFilter(ReadYourWritesTracker tracker, JWTUtil jwtUtil) {
+        this.tracker = tracker;
+        this.jwtUtil = jwtUtil;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+        String subject = subjectOf(request.getHeader(HttpHeaders.AUTHORIZATION));
+
+        if (subject != null && tracker.wroteRecently(subject)) {
+            ReadYourWritesTracker.pinToPrimary();
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadYourWritesTracker.unpin();
+        }
+
+        if (!SAFE_METHODS.contains(request.getMethod()) && response.getStatus() < 400) {
+            if (subject != null) {
+                tracker.recordWrite(subject);
+            }
+            String issued = subjectOf(response.getHeader(HttpHeaders.AUTHORIZATION));
+            if (issued != null) {
+                tracker.recordWrite(issued);
+            }
+        }
+    }
+
+    private String subjectOf(String authorization) {
+        if (authorization == null) {
+            return null;
+        }
+        String token = authorization.startsWith("Bearer ")
+                ? authorization.substring(7)
+                : authorization;
+        try {
+            return jwtUtil.getSubject(token);
+        } catch (RuntimeException e) {
+            // invalid tokens are rejected by the security filters
+            return null;
+        }
+    }
+}
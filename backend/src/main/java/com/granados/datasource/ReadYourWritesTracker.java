@@ -0,0 +1,59 @@
+package com.granados.datasource;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Remembers which subjects wrote recently. While a subject's window is open,
+ * its requests are pinned to the primary, so it never reads a replica that
+ * has not caught up with its own writes yet.
+ */
+public class ReadYourWritesTracker {
+
+    private static final int PURGE_INTERVAL = 1024;
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private final AtomicInteger writesSincePurge = new AtomicInteger();
+    private final long windowNanos;
+
+    public ReadYourWritesTracker(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    public void recordWrite(String subject) {
+        long now = System.nanoTime();
+        lastWrites.put(subject, now);
+        if (writesSincePurge.incrementAndGet() >= PURGE_INTERVAL) {
+            writesSincePurge.set(0);
+            lastWrites.values().removeIf(writtenAt -> now - writtenAt > windowNanos);
+        }
+    }
+
+    public boolean wroteRecently(String subject) {
+        Long writtenAt = lastWrites.get(subject);
+        if (writtenAt == null) {
+            return false;
+        }
+        if (System.nanoTime() - writtenAt > windowNanos) {
+            lastWrites.remove(subject, writtenAt);
+            return false;
+        }
+        return true;
+    }
+
+    static void pinToPrimary() {
+        PINNED.set(Boolean.TRUE);
+    }
+
+    static void unpin() {
+        PINNED.remove();
+    }
+
+    static boolean isPinnedToPrimary() {
+        return PINNED.get() != null;
+    }
+}
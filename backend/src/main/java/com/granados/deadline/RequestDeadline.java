@@ -0,0 +1,64 @@
+package com.granados.deadline;
+
+import com.granados.exception.DeadlineExceededException;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Deadline of the request handled by the current thread, set by
+ * {@link RequestDeadlineFilter}. Database work checks it before taking a
+ * connection and turns what is left of it into the statement timeout, so a
+ * request stops using the database once its client would have given up.
+ * Threads without a deadline, schedulers and import workers, are unaffected.
+ */
+public final class RequestDeadline {
+
+    private static final ThreadLocal<Long> DEADLINE_NANOS = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    static void start(Duration timeout) {
+        DEADLINE_NANOS.set(System.nanoTime() + timeout.toNanos());
+    }
+
+    static void clear() {
+        DEADLINE_NANOS.remove();
+    }
+
+    /**
+     * Time left before the deadline, negative once it passed, or null when
+     * the current thread has no deadline.
+     */
+    public static Duration remaining() {
+        Long deadline = DEADLINE_NANOS.get();
+        return deadline == null ? null : Duration.ofNanos(deadline - System.nanoTime());
+    }
+
+    public static void check() {
+        Duration remaining = remaining();
+        if (remaining != null && (remaining.isNegative() || remaining.isZero())) {
+            throw new DeadlineExceededException(
+                    "request deadline exceeded by %s ms".formatted(remaining.negated().toMillis()));
+        }
+    }
+
+    /**
+     * Lowers the statement timeout to the remaining budget, rounded up to the
+     * whole seconds JDBC supports. A shorter timeout already set is kept.
+     */
+    public static void applyTo(Statement statement) throws SQLException {
+        Duration remaining = remaining();
+        if (remaining == null) {
+            return;
+        }
+        check();
+        int seconds = (int) Math.min(Integer.MAX_VALUE, (remaining.toMillis() + 999) / 1000);
+        int current = statement.getQueryTimeout();
+        if (current == 0 || seconds < current) {
+            statement.setQueryTimeout(seconds);
+        }
+    }
+}
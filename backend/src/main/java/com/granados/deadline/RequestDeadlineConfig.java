@@ -0,0 +1,45 @@
+package com.granados.deadline;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+@Configuration
+@EnableConfigurationProperties(RequestDeadlineProperties.class)
+public class RequestDeadlineConfig {
+
+    @Bean
+    public FilterRegistrationBean<RequestDeadlineFilter> requestDeadlineFilter(
+            RequestDeadlineProperties properties,
+            @Qualifier("handlerExceptionResolver") HandlerExceptionResolver handlerExceptionResolver) {
+        FilterRegistrationBean<RequestDeadlineFilter> registration = new FilterRegistrationBean<>(
+                new RequestDeadlineFilter(properties, handlerExceptionResolver));
+        // ahead of the read-your-writes filter and the security filters
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 2);
+        return registration;
+    }
+
+    /**
+     * Statements cut short by the timeout derived from the deadline must
+     * surface as timeouts, see {@link StatementTimeoutTranslator}.
+     */
+    @Bean
+    public static BeanPostProcessor statementTimeoutTranslatorPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof JdbcTemplate jdbcTemplate && jdbcTemplate.getDataSource() != null) {
+                    jdbcTemplate.setExceptionTranslator(
+                            new StatementTimeoutTranslator(jdbcTemplate.getDataSource()));
+                }
+                return bean;
+            }
+        };
+    }
+}
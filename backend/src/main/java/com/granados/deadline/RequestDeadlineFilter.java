@@ -0,0 +1,100 @@
+package com.granados.deadline;
+
+import com.granados.exception.DeadlineExceededException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.lang.NonNull;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Runs first, so the deadline also covers the user lookup done by the
+ * security filters. Failures to reach the database within the deadline that
+ * escape those filters are answered through the exception handlers like the
+ * ones raised by controllers.
+ */
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+
+    static final String TIMEOUT_HEADER = "X-Request-Timeout";
+
+    private final RequestDeadlineProperties properties;
+    private final HandlerExceptionResolver handlerExceptionResolver;
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+
+    public RequestDeadlineFilter(RequestDeadlineProperties properties,
+                                 HandlerExceptionResolver handlerExceptionResolver) {
+        this.properties = properties;
+        this.handlerExceptionResolver = handlerExceptionResolver;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+        if (isExempt(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        RequestDeadline.start(timeoutOf(request));
+        try {
+            filterChain.doFilter(request, response);
+        } catch (DeadlineExceededException
+                 | QueryTimeoutException
+                 | CannotGetJdbcConnectionException
+                 | CannotCreateTransactionException e) {
+            if (response.isCommitted()) {
+                throw e;
+            }
+            handlerExceptionResolver.resolveException(request, response, null, e);
+        } finally {
+            RequestDeadline.clear();
+        }
+    }
+
+    boolean isExempt(HttpServletRequest request) {
+        String path = pathOf(request);
+        return properties.exempt().stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    Duration timeoutOf(HttpServletRequest request) {
+        String header = request.getHeader(TIMEOUT_HEADER);
+        if (header != null) {
+            try {
+                long millis = Long.parseLong(header.trim());
+                if (millis > 0) {
+                    Duration requested = Duration.ofMillis(millis);
+                    return requested.compareTo(properties.maxTimeout()) > 0
+                            ? properties.maxTimeout()
+                            : requested;
+                }
+            } catch (NumberFormatException e) {
+                // fall back to the endpoint's timeout
+            }
+        }
+
+        String path = pathOf(request);
+        for (Map.Entry<String, Duration> endpoint : properties.endpoints().entrySet()) {
+            if (pathMatcher.match(endpoint.getKey(), path)) {
+                return endpoint.getValue();
+            }
+        }
+        return properties.defaultTimeout();
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
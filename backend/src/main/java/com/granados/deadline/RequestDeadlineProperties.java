@@ -0,0 +1,34 @@
+package com.granados.deadline;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Request deadlines. {@code endpoints} maps Ant-style path patterns to their
+ * timeout, the first matching pattern wins. Clients may ask for another
+ * timeout in milliseconds through the {@code X-Request-Timeout} header, up to
+ * {@code maxTimeout}.
+ * <p>
+ * Requests matching an {@code exempt} pattern get no deadline at all. That is
+ * meant for streaming endpoints, the csv import and the export, which commit
+ * as they go: cutting them short would leave the work half done with nothing
+ * to tell the client how far it got.
+ */
+@ConfigurationProperties("request-deadline")
+public record RequestDeadlineProperties(
+        @DefaultValue("10s") Duration defaultTimeout,
+        @DefaultValue("60s") Duration maxTimeout,
+        Map<String, Duration> endpoints,
+        List<String> exempt
+) {
+
+    public RequestDeadlineProperties {
+        endpoints = endpoints == null ? Map.of() : new LinkedHashMap<>(endpoints);
+        exempt = exempt == null ? List.of() : List.copyOf(exempt);
+    }
+}
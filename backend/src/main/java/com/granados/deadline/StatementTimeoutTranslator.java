@@ -0,0 +1,33 @@
+package com.granados.deadline;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.support.SQLErrorCodeSQLExceptionTranslator;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Postgres cancels a statement that runs past its timeout with SQL state
+ * 57014, which Spring's PostgreSQL error codes do not list: it would fall
+ * back to the SQL state class and become a
+ * {@link org.springframework.dao.DataAccessResourceFailureException}. Map it
+ * to a {@link QueryTimeoutException} instead, answered with 504 like any
+ * other request that ran out of time. The message leaves the SQL out.
+ */
+public class StatementTimeoutTranslator extends SQLErrorCodeSQLExceptionTranslator {
+
+    static final String QUERY_CANCELED = "57014";
+
+    public StatementTimeoutTranslator(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    @Override
+    protected DataAccessException customTranslate(String task, String sql, SQLException sqlEx) {
+        if (QUERY_CANCELED.equals(sqlEx.getSQLState())) {
+            return new QueryTimeoutException(task + " timed out", sqlEx);
+        }
+        return null;
+    }
+}
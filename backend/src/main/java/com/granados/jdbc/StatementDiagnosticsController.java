@@ -0,0 +1,31 @@
+package com.granados.jdbc;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("api/v1/diagnostics/statements")
+public class StatementDiagnosticsController {
+
+    private final StatementMetrics statementMetrics;
+
+    public StatementDiagnosticsController(StatementMetrics statementMetrics) {
+        this.statementMetrics = statementMetrics;
+    }
+
+    @GetMapping
+    public List<StatementStats> getStatementStats() {
+        return statementMetrics.snapshot();
+    }
+
+    @DeleteMapping
+    public ResponseEntity<?> resetStatementStats() {
+        statementMetrics.reset();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,105 @@
+package com.granados.jdbc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket latency histogram, cheap enough to update on every statement.
+ * Percentiles are reported as the upper bound of the bucket they fall in.
+ */
+class StatementLatencyHistogram {
+
+    static final long[] BOUNDS_MILLIS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private static final long[] BOUNDS_NANOS = new long[BOUNDS_MILLIS.length];
+
+    static {
+        for (int i = 0; i < BOUNDS_MILLIS.length; i++) {
+            BOUNDS_NANOS[i] = TimeUnit.MILLISECONDS.toNanos(BOUNDS_MILLIS[i]);
+        }
+    }
+
+    // one extra bucket for everything above the last bound
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_MILLIS.length + 1];
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    StatementLatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    void record(long nanos, long rowCount) {
+        buckets[bucketOf(nanos)].increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        if (rowCount > 0) {
+            rows.add(rowCount);
+        }
+    }
+
+    StatementStats snapshot(String sql) {
+        long[] counts = new long[buckets.length];
+        long count = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+
+        List<StatementStats.Bucket> histogram = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            histogram.add(new StatementStats.Bucket(upperBound(i), counts[i]));
+        }
+
+        double totalMillis = toMillis(totalNanos.sum());
+        return new StatementStats(
+                sql,
+                count,
+                rows.sum(),
+                totalMillis,
+                count == 0 ? 0 : totalMillis / count,
+                toMillis(maxNanos.get()),
+                percentile(counts, count, 0.50),
+                percentile(counts, count, 0.95),
+                percentile(counts, count, 0.99),
+                histogram
+        );
+    }
+
+    private static int bucketOf(long nanos) {
+        for (int i = 0; i < BOUNDS_NANOS.length; i++) {
+            if (nanos <= BOUNDS_NANOS[i]) {
+                return i;
+            }
+        }
+        return BOUNDS_NANOS.length;
+    }
+
+    private static Long upperBound(int bucket) {
+        return bucket < BOUNDS_MILLIS.length ? BOUNDS_MILLIS[bucket] : null;
+    }
+
+    private static Long percentile(long[] counts, long total, double quantile) {
+        if (total == 0) {
+            return null;
+        }
+        long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return null;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
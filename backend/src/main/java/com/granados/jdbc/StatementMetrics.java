@@ -0,0 +1,76 @@
+package com.granados.jdbc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Collects the timings reported by {@link TimedDataSource}: a latency
+ * histogram per SQL template, and a log line for each statement slower than
+ * the threshold. Bind values are never logged, only how many there were.
+ */
+public class StatementMetrics {
+
+    static final String OTHER_STATEMENTS = "<other statements>";
+
+    private static final Logger log = LoggerFactory.getLogger(StatementMetrics.class);
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final long slowThresholdNanos;
+    private final int maxTemplates;
+    private final Map<String, StatementLatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    public StatementMetrics(Duration slowThreshold, int maxTemplates) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.maxTemplates = maxTemplates;
+    }
+
+    void record(String sql, int binds, long rows, long nanos) {
+        String template = template(sql);
+        histogramFor(template).record(nanos, rows);
+
+        if (nanos >= slowThresholdNanos) {
+            log.warn("slow statement took {} ms, {} binds, {} rows: {}",
+                    TimeUnit.NANOSECONDS.toMillis(nanos),
+                    binds,
+                    rows < 0 ? "?" : rows,
+                    template);
+        }
+    }
+
+    public List<StatementStats> snapshot() {
+        return histograms.entrySet()
+                .stream()
+                .map(entry -> entry.getValue().snapshot(entry.getKey()))
+                .sorted(Comparator.comparingDouble(StatementStats::totalMillis).reversed())
+                .toList();
+    }
+
+    public void reset() {
+        histograms.clear();
+    }
+
+    private StatementLatencyHistogram histogramFor(String template) {
+        StatementLatencyHistogram histogram = histograms.get(template);
+        if (histogram != null) {
+            return histogram;
+        }
+        // statements built with literals would otherwise grow the map forever
+        if (histograms.size() >= maxTemplates) {
+            template = OTHER_STATEMENTS;
+        }
+        return histograms.computeIfAbsent(template, key -> new StatementLatencyHistogram());
+    }
+
+    static String template(String sql) {
+        return sql == null ? OTHER_STATEMENTS : WHITESPACE.matcher(sql).replaceAll(" ").trim();
+    }
+}
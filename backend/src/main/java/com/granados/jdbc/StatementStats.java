@@ -0,0 +1,28 @@
+package com.granados.jdbc;
+
+import java.util.List;
+
+/**
+ * Latency of one SQL template. Percentiles are bucket upper bounds in
+ * milliseconds, null when they fall above the last bucket.
+ */
+public record StatementStats(
+        String sql,
+        long count,
+        long rows,
+        double totalMillis,
+        double meanMillis,
+        double maxMillis,
+        Long p50Millis,
+        Long p95Millis,
+        Long p99Millis,
+        List<Bucket> histogram
+) {
+
+    /**
+     * Statements that took at most {@code upperBoundMillis}, and more than
+     * the previous bucket's bound. A null bound is the overflow bucket.
+     */
+    public record Bucket(Long upperBoundMillis, long count) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.granados.jdbc;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Times every statement sent through the application's {@code dataSource},
+ * whichever pool or routing data source ends up behind it. Only that bean is
+ * wrapped, so statements through a routing data source are not timed twice.
+ */
+@Configuration
+public class StatementTimingConfig {
+
+    static final String DATA_SOURCE_BEAN = "dataSource";
+
+    @Bean
+    public StatementMetrics statementMetrics(
+            @Value("${jdbc.slow-statement-threshold:200ms}") Duration slowThreshold,
+            @Value("${jdbc.max-statement-templates:500}") int maxTemplates) {
+        return new StatementMetrics(slowThreshold, maxTemplates);
+    }
+
+    @Bean
+    public static BeanPostProcessor timedDataSourcePostProcessor(ObjectProvider<StatementMetrics> statementMetrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (DATA_SOURCE_BEAN.equals(beanName) && bean instanceof DataSource dataSource) {
+                    return new TimedDataSource(dataSource, statementMetrics);
+                }
+                return bean;
+            }
+        };
+    }
+}
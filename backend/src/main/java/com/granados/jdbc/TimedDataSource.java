@@ -0,0 +1,272 @@
+package com.granados.jdbc;
+
+import com.granados.deadline.RequestDeadline;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Wraps connections so every statement executed through them, by JdbcTemplate
+ * or Hibernate alike, is timed and reported to {@link StatementMetrics}, and
+ * bounded by the {@link RequestDeadline} of the current request.
+ * <p>
+ * Updates are recorded when they return. Queries are recorded when their
+ * result set or statement is closed, counting the rows read and the time
+ * spent fetching them, but not the time the caller spends mapping them.
+ * Anything else, {@code unwrap} included, goes straight to the driver.
+ */
+public class TimedDataSource extends DelegatingDataSource {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate",
+            "executeBatch", "executeLargeBatch"
+    );
+
+    private final ObjectProvider<StatementMetrics> metricsProvider;
+    private volatile StatementMetrics metrics;
+
+    public TimedDataSource(DataSource targetDataSource, ObjectProvider<StatementMetrics> metricsProvider) {
+        super(targetDataSource);
+        this.metricsProvider = metricsProvider;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        RequestDeadline.check();
+        return timed(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        RequestDeadline.check();
+        return timed(super.getConnection(username, password));
+    }
+
+    private Connection timed(Connection connection) {
+        return proxy(Connection.class, new ConnectionHandler(connection));
+    }
+
+    private StatementMetrics metrics() {
+        StatementMetrics current = metrics;
+        if (current == null) {
+            current = metricsProvider.getObject();
+            metrics = current;
+        }
+        return current;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(TimedDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Proxies are only equal to themselves, so Spring can still match the
+     * connection it bound to a transaction.
+     */
+    private static Object identity(Object proxy, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> null;
+        };
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object identity = identity(proxy, method, args);
+            if (identity != null) {
+                return identity;
+            }
+            Object result = TimedDataSource.invoke(target, method, args);
+            return switch (method.getName()) {
+                case "createStatement" -> proxy(Statement.class,
+                        new StatementHandler((Statement) result, null));
+                case "prepareStatement" -> proxy(PreparedStatement.class,
+                        new StatementHandler((Statement) result, (String) args[0]));
+                case "prepareCall" -> proxy(CallableStatement.class,
+                        new StatementHandler((Statement) result, (String) args[0]));
+                default -> result;
+            };
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private String sql;
+        private int binds;
+        private Execution pending;
+
+        StatementHandler(Statement target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object identity = identity(proxy, method, args);
+            if (identity != null) {
+                return identity;
+            }
+            String name = method.getName();
+            if (EXECUTE_METHODS.contains(name)) {
+                return execute(method, args);
+            }
+            if (name.equals("close")) {
+                finishPending();
+            } else if (name.startsWith("set")
+                    && method.getDeclaringClass() != Statement.class
+                    && args != null && args[0] instanceof Integer index) {
+                binds = Math.max(binds, index);
+            } else if (name.equals("addBatch") && args != null && sql == null) {
+                // plain statement batches are reported under their first statement
+                sql = (String) args[0];
+            }
+            return TimedDataSource.invoke(target, method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            finishPending();
+            RequestDeadline.applyTo(target);
+            String executed = args != null && args.length > 0 && args[0] instanceof String text ? text : sql;
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = TimedDataSource.invoke(target, method, args);
+            } catch (Throwable e) {
+                metrics().record(executed, binds, -1, System.nanoTime() - start);
+                throw e;
+            }
+            long elapsed = System.nanoTime() - start;
+
+            if (result instanceof ResultSet resultSet) {
+                pending = new Execution(executed, binds, elapsed);
+                return proxy(ResultSet.class, new ResultSetHandler(resultSet, pending));
+            }
+            metrics().record(executed, binds, rows(result), elapsed);
+            return result;
+        }
+
+        private void finishPending() {
+            if (pending != null) {
+                pending.finish();
+                pending = null;
+            }
+        }
+
+        private static long rows(Object result) {
+            if (result instanceof Integer count) {
+                return count;
+            }
+            if (result instanceof Long count) {
+                return count;
+            }
+            long rows = 0;
+            if (result instanceof int[] counts) {
+                for (int count : counts) {
+                    rows += Math.max(count, 0);
+                }
+                return rows;
+            }
+            if (result instanceof long[] counts) {
+                for (long count : counts) {
+                    rows += Math.max(count, 0);
+                }
+                return rows;
+            }
+            // execute() only says whether there is a result set
+            return -1;
+        }
+    }
+
+    private class Execution {
+
+        private final String sql;
+        private final int binds;
+        private long nanos;
+        private long rows;
+        private boolean finished;
+
+        Execution(String sql, int binds, long nanos) {
+            this.sql = sql;
+            this.binds = binds;
+            this.nanos = nanos;
+        }
+
+        void finish() {
+            if (!finished) {
+                finished = true;
+                metrics().record(sql, binds, rows, nanos);
+            }
+        }
+    }
+
+    private static class ResultSetHandler implements InvocationHandler {
+
+        private final ResultSet target;
+        private final Execution execution;
+
+        ResultSetHandler(ResultSet target, Execution execution) {
+            this.target = target;
+            this.execution = execution;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object identity = identity(proxy, method, args);
+            if (identity != null) {
+                return identity;
+            }
+            switch (method.getName()) {
+                case "next" -> {
+                    long start = System.nanoTime();
+                    Object result = TimedDataSource.invoke(target, method, args);
+                    execution.nanos += System.nanoTime() - start;
+                    if (Boolean.TRUE.equals(result)) {
+                        execution.rows++;
+                    }
+                    return result;
+                }
+                case "close" -> {
+                    try {
+                        return TimedDataSource.invoke(target, method, args);
+                    } finally {
+                        execution.finish();
+                    }
+                }
+                default -> {
+                    return TimedDataSource.invoke(target, method, args);
+                }
+            }
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.granados.jwt;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -14,16 +17,35 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
+/**
+ * Authenticates requests carrying a bearer token.
+ * <p>
+ * By default the customer named by the token is loaded for its authorities.
+ * With {@code jwt.claims-only-authentication} the authentication is built from
+ * the verified claims alone, a {@link JWTPrincipal} with the token scopes as
+ * authorities, and tokens issued against an earlier version of the customer
+ * are turned down by the {@link TokenRevocationList}. Tokens issued without a
+ * customer id and version still go through the lookup, as do all tokens until
+ * the revocation list is loaded.
+ */
 @Component
 public class JWTAuthenticationFilter extends OncePerRequestFilter {
 
     private final JWTUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final TokenRevocationList revocationList;
+    private final boolean claimsOnly;
 
-    public JWTAuthenticationFilter(JWTUtil jwtUtil, UserDetailsService userDetailsService) {
+    public JWTAuthenticationFilter(JWTUtil jwtUtil,
+                                   UserDetailsService userDetailsService,
+                                   TokenRevocationList revocationList,
+                                   @Value("${jwt.claims-only-authentication:false}") boolean claimsOnly) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.revocationList = revocationList;
+        this.claimsOnly = claimsOnly;
     }
 
     @Override
@@ -40,12 +62,26 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
         }
 
         String jwt = authHeader.substring(7);
-        String subject = jwtUtil.getSubject(jwt);
+
+        Claims claims = jwtUtil.getVerifiedClaims(jwt);
+
+        // until revocations are loaded only the customer lookup can be trusted
+        if(claimsOnly && revocationList.isLoaded()){
+            Integer customerId = claims.get(JWTUtil.CUSTOMER_ID_CLAIM, Integer.class);
+            Long customerVersion = claims.get(JWTUtil.CUSTOMER_VERSION_CLAIM, Long.class);
+            if(customerId != null && customerVersion != null){
+                authenticateFromClaims(request, claims, customerId, customerVersion);
+                filterChain.doFilter(request, response);
+                return;
+            }
+        }
+
+        String subject = claims.getSubject();
 
         if(subject != null &&
                 SecurityContextHolder.getContext().getAuthentication() == null){
             UserDetails userDetails = userDetailsService.loadUserByUsername(subject);
-            if(jwtUtil.isTokenValid(jwt, userDetails.getUsername())){
+            if(jwtUtil.isTokenValid(claims, userDetails.getUsername())){
                 UsernamePasswordAuthenticationToken authenticationToken =
                         new UsernamePasswordAuthenticationToken(
                                 userDetails, null, userDetails.getAuthorities()
@@ -58,4 +94,28 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    private void authenticateFromClaims(HttpServletRequest request, Claims claims,
+                                        Integer customerId, long customerVersion) {
+        String subject = claims.getSubject();
+        if(subject == null ||
+                SecurityContextHolder.getContext().getAuthentication() != null ||
+                revocationList.isRevoked(customerId, customerVersion)){
+            return;
+        }
+        List<?> scopes = claims.get(JWTUtil.SCOPES_CLAIM, List.class);
+        List<SimpleGrantedAuthority> authorities = scopes == null
+                ? List.of()
+                : scopes.stream()
+                        .map(scope -> new SimpleGrantedAuthority(scope.toString()))
+                        .toList();
+        UsernamePasswordAuthenticationToken authenticationToken =
+                new UsernamePasswordAuthenticationToken(
+                        new JWTPrincipal(customerId, subject), null, authorities
+                );
+        authenticationToken.setDetails(
+                new WebAuthenticationDetailsSource().buildDetails(request)
+        );
+        SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+    }
 }
@@ -0,0 +1,18 @@
+package com.granados.jwt;
+
+import java.security.Principal;
+
+/**
+ * Who a request was authenticated as when only the token claims were trusted,
+ * see {@link JWTAuthenticationFilter}.
+ */
+public record JWTPrincipal(
+        Integer customerId,
+        String username
+) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
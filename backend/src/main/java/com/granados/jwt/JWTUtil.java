@@ -1,35 +1,103 @@
 package com.granados.jwt;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
-import static java.time.temporal.ChronoUnit.DAYS;
-
+/**
+ * Issues and verifies tokens. The signing key and parser are built once and
+ * shared, both are thread safe.
+ * <p>
+ * A request verifies its token several times, in the read-your-writes and the
+ * authentication filters, and a client sends the same token on every request,
+ * so verified claims are kept in a bounded cache keyed by a hash of the token
+ * until the token expires. Callers must not change the claims they get.
+ */
 @Service
 public class JWTUtil {
 
     private static final String SECRET_KEY =
             "foobar_123456789_foobar_123456789_foobar_123456789";
 
+    static final Duration TOKEN_LIFETIME = Duration.ofDays(15);
+    static final String CUSTOMER_ID_CLAIM = "customer_id";
+    static final String CUSTOMER_VERSION_CLAIM = "customer_version";
+    static final String SCOPES_CLAIM = "scopes";
+
+    private static final Key SIGNING_KEY = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    private static final JwtParser PARSER = Jwts
+            .parserBuilder()
+            .setSigningKey(SIGNING_KEY)
+            .build();
+
+    private final Cache<ByteBuffer, Claims> verifiedClaims;
+
+    public JWTUtil(@Value("${jwt.verified-token-cache.maximum-size:10000}") long maximumSize) {
+        this.verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<ByteBuffer, Claims>() {
+                    @Override
+                    public long expireAfterCreate(ByteBuffer key, Claims claims, long currentTime) {
+                        return Math.max(0, Duration.between(
+                                Instant.now(), claims.getExpiration().toInstant()
+                        ).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ByteBuffer key, Claims claims,
+                                                  long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(ByteBuffer key, Claims claims,
+                                                long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
     public String issueToken(String subject){
         return issueToken(subject, Map.of());
     }
 
     public String issueToken(String subject, String ...scopes){
-        return issueToken(subject, Map.of("scopes", scopes));
+        return issueToken(subject, Map.of(SCOPES_CLAIM, scopes));
     }
 
     public String issueToken(String subject, List<String> scopes){
-        return issueToken(subject, Map.of("scopes", scopes));
+        return issueToken(subject, Map.of(SCOPES_CLAIM, scopes));
+    }
+
+    /**
+     * Token carrying everything needed to authenticate without loading the
+     * customer, see {@link JWTAuthenticationFilter}. The version is the one of
+     * the customer row the token is issued against, see {@link TokenRevocationList}.
+     */
+    public String issueToken(String subject, Integer customerId, long customerVersion, List<String> scopes){
+        return issueToken(subject, Map.of(
+                CUSTOMER_ID_CLAIM, customerId,
+                CUSTOMER_VERSION_CLAIM, customerVersion,
+                SCOPES_CLAIM, scopes));
     }
 
     public String issueToken(String subject,
@@ -43,40 +111,59 @@ public class JWTUtil {
                 .setExpiration(
                         Date.from(
                                 Instant.now()
-                                        .plus(15, DAYS)
+                                        .plus(TOKEN_LIFETIME)
 
                         )
                 )
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(SIGNING_KEY, SignatureAlgorithm.HS256)
                 .compact();
         return token;
     }
 
     public String getSubject(String token){
-        return getClaims(token).getSubject();
+        return getVerifiedClaims(token).getSubject();
     }
 
-    private Claims getClaims(String token) {
-        Claims claims = Jwts
-                .parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Claims of a token whose signature and expiration were verified.
+     */
+    public Claims getVerifiedClaims(String token) {
+        ByteBuffer key = hash(token);
+        Claims claims = verifiedClaims.getIfPresent(key);
+        if (claims != null && !isExpired(claims)) {
+            return claims;
+        }
+        // expired tokens are left to the parser so they fail the same way
+        claims = verify(token);
+        if (claims.getExpiration() != null) {
+            verifiedClaims.put(key, claims);
+        }
         return claims;
     }
 
-    private Key getSigningKey(){
-        return Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    Claims verify(String token) {
+        return PARSER.parseClaimsJws(token).getBody();
     }
 
     public boolean isTokenValid(String jwt, String username) {
-        String subject = getSubject(jwt);
-        return subject.equals(username) && !isTokenExpired(jwt);
+        return isTokenValid(getVerifiedClaims(jwt), username);
     }
 
-    private boolean isTokenExpired(String jwt) {
+    public boolean isTokenValid(Claims claims, String username) {
+        return claims.getSubject().equals(username) && !isExpired(claims);
+    }
+
+    private static boolean isExpired(Claims claims) {
         Date today = Date.from(Instant.now());
-        return getClaims(jwt).getExpiration().before(today);
+        return claims.getExpiration() != null && claims.getExpiration().before(today);
+    }
+
+    private static ByteBuffer hash(String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
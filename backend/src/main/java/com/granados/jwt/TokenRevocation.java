@@ -0,0 +1,19 @@
+package com.granados.jwt;
+
+/**
+ * Tokens of a customer issued against a version of the row below
+ * {@code version} are revoked; {@code revokedAt}, in epoch seconds, tells when
+ * the last of them expires.
+ */
+public record TokenRevocation(
+        long version,
+        long revokedAt
+) {
+
+    TokenRevocation latest(TokenRevocation other) {
+        return new TokenRevocation(
+                Math.max(version, other.version),
+                Math.max(revokedAt, other.revokedAt)
+        );
+    }
+}
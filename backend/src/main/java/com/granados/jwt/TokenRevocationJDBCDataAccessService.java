@@ -0,0 +1,66 @@
+package com.granados.jwt;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the customer_token_revocation table filled by triggers on customer,
+ * see V11__Add_Customer_Token_Revocation.sql.
+ */
+@Repository
+public class TokenRevocationJDBCDataAccessService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TokenRevocationJDBCDataAccessService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * The revocation of every customer revoked after {@code since}, by
+     * customer id.
+     */
+    public Map<Integer, TokenRevocation> selectRevocationsSince(Instant since) {
+        var sql = """
+                SELECT customer_id, version, floor(extract(epoch FROM revoked_at))::BIGINT
+                FROM customer_token_revocation
+                WHERE revoked_at > ?
+                """;
+
+        Map<Integer, TokenRevocation> revocations = new HashMap<>();
+        jdbcTemplate.query(sql, collectInto(revocations), Timestamp.from(since));
+        return revocations;
+    }
+
+    public Map<Integer, TokenRevocation> selectRevocations(Collection<Integer> customerIds) {
+        var sql = """
+                SELECT customer_id, version, floor(extract(epoch FROM revoked_at))::BIGINT
+                FROM customer_token_revocation
+                WHERE customer_id = ANY(?)
+                """;
+
+        Map<Integer, TokenRevocation> revocations = new HashMap<>();
+        jdbcTemplate.query(sql, collectInto(revocations), (Object) customerIds.toArray(Integer[]::new));
+        return revocations;
+    }
+
+    public int deleteRevocationsBefore(Instant before) {
+        var sql = """
+                DELETE FROM customer_token_revocation
+                WHERE revoked_at < ?
+                """;
+
+        return jdbcTemplate.update(sql, Timestamp.from(before));
+    }
+
+    private static RowCallbackHandler collectInto(Map<Integer, TokenRevocation> revocations) {
+        return rs -> revocations.put(rs.getInt(1), new TokenRevocation(rs.getLong(2), rs.getLong(3)));
+    }
+}
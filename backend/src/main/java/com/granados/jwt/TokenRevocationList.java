@@ -0,0 +1,180 @@
+package com.granados.jwt;
+
+import com.granados.customer.CustomerChangeEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tokens that must no longer authenticate although their signature and
+ * expiration are fine, checked by {@link JWTAuthenticationFilter} when it
+ * trusts the claims instead of loading the customer.
+ * <p>
+ * Issued tokens are not tracked, so revocation is by customer: a token carries
+ * the version of the customer row it was issued against and is rejected once
+ * the row moved past it, or was deleted. Versions come from the row itself,
+ * so no clock is compared and a token issued right after a change is fine.
+ * <p>
+ * Triggers record every change in customer_token_revocation. It is loaded on
+ * start, on every refresh and after a {@link CustomerChangeEvent.Operation#RESET},
+ * so changes missed while the instance was down or its change feed
+ * disconnected are caught up with; the customers a {@link CustomerChangeEvent}
+ * reports are read from it straight away. Until a load succeeds every token
+ * counts as revoked.
+ * <p>
+ * A revocation outlives every token it covers after one token lifetime, from
+ * then on it is dropped by a timing wheel with one slot per {@link #TICK} so
+ * the set only holds customers changed recently.
+ */
+@Component
+public class TokenRevocationList {
+
+    static final Duration TICK = Duration.ofHours(1);
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    private final TokenRevocationJDBCDataAccessService dataAccessService;
+    private final long lifetimeSeconds;
+    private final long tickSeconds;
+    private final Map<Integer, TokenRevocation> revocationsByCustomer = new ConcurrentHashMap<>();
+    private final Set<Integer>[] wheel;
+    private volatile boolean loaded;
+    private long sweptTick;
+
+    @Autowired
+    public TokenRevocationList(TokenRevocationJDBCDataAccessService dataAccessService) {
+        this(dataAccessService, JWTUtil.TOKEN_LIFETIME, TICK, Instant.now().getEpochSecond());
+    }
+
+    @SuppressWarnings("unchecked")
+    TokenRevocationList(TokenRevocationJDBCDataAccessService dataAccessService,
+                        Duration tokenLifetime, Duration tick, long nowSeconds) {
+        this.dataAccessService = dataAccessService;
+        this.lifetimeSeconds = tokenLifetime.toSeconds();
+        this.tickSeconds = tick.toSeconds();
+        this.wheel = new Set[(int) (lifetimeSeconds / tickSeconds) + 2];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new HashSet<>();
+        }
+        this.sweptTick = nowSeconds / tickSeconds;
+    }
+
+    /**
+     * Whether the revocations were loaded from the database, before that
+     * claims cannot be trusted on their own.
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public boolean isRevoked(Integer customerId, long customerVersion) {
+        if (!loaded) {
+            return true;
+        }
+        TokenRevocation revocation = revocationsByCustomer.get(customerId);
+        return revocation != null && customerVersion < revocation.version();
+    }
+
+    /**
+     * Reads the revocations of customers just changed. If that fails every
+     * token counts as revoked until the next refresh loads them all.
+     */
+    public void revoke(Collection<Integer> customerIds) {
+        Map<Integer, TokenRevocation> revocations;
+        try {
+            revocations = dataAccessService.selectRevocations(customerIds);
+        } catch (DataAccessException e) {
+            log.warn("could not load token revocations of changed customers", e);
+            loaded = false;
+            return;
+        }
+        synchronized (this) {
+            revocations.forEach(this::revoke);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation-refresh-interval:PT1M}")
+    public void refresh() {
+        long nowSeconds = Instant.now().getEpochSecond();
+        reload(nowSeconds);
+        expire(nowSeconds);
+        try {
+            dataAccessService.deleteRevocationsBefore(Instant.ofEpochSecond(nowSeconds - lifetimeSeconds));
+        } catch (DataAccessException e) {
+            log.warn("could not delete expired token revocations", e);
+        }
+    }
+
+    void reload(long nowSeconds) {
+        Map<Integer, TokenRevocation> revocations;
+        try {
+            revocations = dataAccessService.selectRevocationsSince(
+                    Instant.ofEpochSecond(nowSeconds - lifetimeSeconds));
+        } catch (DataAccessException e) {
+            log.warn("could not load token revocations", e);
+            return;
+        }
+        synchronized (this) {
+            revocations.forEach(this::revoke);
+            loaded = true;
+        }
+    }
+
+    synchronized void expire(long nowSeconds) {
+        long currentTick = nowSeconds / tickSeconds;
+        // only ticks that are over, one whole turn at most after a long pause
+        for (long tick = Math.max(sweptTick, currentTick - wheel.length); tick < currentTick; tick++) {
+            int index = (int) (tick % wheel.length);
+            wheel[index].removeIf(customerId -> {
+                TokenRevocation revocation = revocationsByCustomer.get(customerId);
+                if (revocation == null) {
+                    return true;
+                }
+                if (revocation.revokedAt() + lifetimeSeconds < nowSeconds) {
+                    revocationsByCustomer.remove(customerId, revocation);
+                    return true;
+                }
+                // revoked again since, the later revocation has its own slot
+                return slotOf(revocation.revokedAt() + lifetimeSeconds) != index;
+            });
+        }
+        sweptTick = Math.max(sweptTick, currentTick);
+    }
+
+    int size() {
+        return revocationsByCustomer.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChange(CustomerChangeEvent event) {
+        switch (event.operation()) {
+            // tokens are only issued to customers that exist
+            case CREATED -> {
+            }
+            case UPDATED, DELETED -> revoke(event.customerIds());
+            // changes may have been missed, the database has them all
+            case RESET -> reload(Instant.now().getEpochSecond());
+        }
+    }
+
+    private void revoke(Integer customerId, TokenRevocation revocation) {
+        TokenRevocation latest = revocationsByCustomer.merge(customerId, revocation, TokenRevocation::latest);
+        wheel[slotOf(latest.revokedAt() + lifetimeSeconds)].add(customerId);
+    }
+
+    private int slotOf(long epochSeconds) {
+        return (int) ((epochSeconds / tickSeconds) % wheel.length);
+    }
+}
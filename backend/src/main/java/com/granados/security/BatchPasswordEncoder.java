@@ -0,0 +1,59 @@
+package com.granados.security;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashes many passwords at once on a bounded pool sized to the available
+ * cores. When the pool is saturated the calling thread hashes as well,
+ * so callers are throttled instead of queueing without bound.
+ */
+@Component
+public class BatchPasswordEncoder implements DisposableBean {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+
+    public BatchPasswordEncoder(PasswordEncoder passwordEncoder) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        this.passwordEncoder = passwordEncoder;
+        this.executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 64),
+                new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+
+    public CompletableFuture<List<String>> encodeAllAsync(List<String> rawPasswords) {
+        List<CompletableFuture<String>> hashes = rawPasswords.stream()
+                .map(rawPassword -> CompletableFuture.supplyAsync(
+                        () -> passwordEncoder.encode(rawPassword), executor))
+                .toList();
+
+        return CompletableFuture.allOf(hashes.toArray(CompletableFuture[]::new))
+                .thenApply(done -> hashes.stream()
+                        .map(CompletableFuture::join)
+                        .toList());
+    }
+
+    public List<String> encodeAll(List<String> rawPasswords) {
+        return encodeAllAsync(rawPasswords).join();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
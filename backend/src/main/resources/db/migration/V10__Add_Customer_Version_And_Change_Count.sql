@@ -0,0 +1,42 @@
+-- Every row carries a version bumped on each update that changes it, used
+-- as the ETag of the customer. Adding a column with a constant default does
+-- not rewrite the table.
+ALTER TABLE customer ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+CREATE FUNCTION customer_bump_version() RETURNS trigger AS $$
+BEGIN
+  NEW.version := OLD.version + 1;
+  RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER customer_bump_version
+BEFORE UPDATE ON customer
+FOR EACH ROW
+WHEN (OLD IS DISTINCT FROM NEW)
+EXECUTE FUNCTION customer_bump_version();
+
+-- Statements changing customer, counted over 16 shards so concurrent writers
+-- rarely wait on the same row. Shards only grow, so their sum changes with
+-- every committed change and serves as the ETag of the customer list.
+CREATE TABLE customer_change_count(
+  shard INTEGER PRIMARY KEY,
+  changes BIGINT NOT NULL
+);
+
+INSERT INTO customer_change_count(shard, changes)
+SELECT shard, 0
+FROM generate_series(0, 15) AS shard;
+
+CREATE FUNCTION customer_change_count_bump() RETURNS trigger AS $$
+BEGIN
+  UPDATE customer_change_count
+  SET changes = changes + 1
+  WHERE shard = pg_backend_pid() % 16;
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER customer_change_count_bump
+AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON customer
+FOR EACH STATEMENT EXECUTE FUNCTION customer_change_count_bump();
@@ -0,0 +1,50 @@
+-- Customers changed or deleted recently: tokens issued against an earlier
+-- version of the row must be turned down when authentication trusts the token
+-- claims. Deleted customers get the highest version, so every token is.
+-- Kept in the database so an instance that just started, or missed
+-- notifications, still knows; the application deletes rows once every token
+-- they cover has expired, going by revoked_at.
+CREATE TABLE customer_token_revocation(
+  customer_id BIGINT PRIMARY KEY,
+  version BIGINT NOT NULL,
+  revoked_at TIMESTAMPTZ NOT NULL
+);
+
+CREATE INDEX customer_token_revocation_revoked_at_idx
+ON customer_token_revocation(revoked_at);
+
+CREATE FUNCTION customer_token_revoke_updated() RETURNS trigger AS $$
+BEGIN
+  INSERT INTO customer_token_revocation (customer_id, version, revoked_at)
+  SELECT id, version, clock_timestamp()
+  FROM new_rows
+  ORDER BY id
+  ON CONFLICT (customer_id) DO UPDATE
+  SET version = GREATEST(customer_token_revocation.version, EXCLUDED.version),
+      revoked_at = EXCLUDED.revoked_at;
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION customer_token_revoke_deleted() RETURNS trigger AS $$
+BEGIN
+  INSERT INTO customer_token_revocation (customer_id, version, revoked_at)
+  SELECT id, 9223372036854775807, clock_timestamp()
+  FROM old_rows
+  ORDER BY id
+  ON CONFLICT (customer_id) DO UPDATE
+  SET version = EXCLUDED.version,
+      revoked_at = EXCLUDED.revoked_at;
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER customer_token_revoke_updated
+AFTER UPDATE ON customer
+REFERENCING NEW TABLE AS new_rows
+FOR EACH STATEMENT EXECUTE FUNCTION customer_token_revoke_updated();
+
+CREATE TRIGGER customer_token_revoke_deleted
+AFTER DELETE ON customer
+REFERENCING OLD TABLE AS old_rows
+FOR EACH STATEMENT EXECUTE FUNCTION customer_token_revoke_deleted();
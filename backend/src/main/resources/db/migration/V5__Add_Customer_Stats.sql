@@ -0,0 +1,85 @@
+-- Counts per gender and age bucket, spread over 16 shards so concurrent
+-- writers rarely wait on the same row; readers sum the shards.
+CREATE TABLE customer_stats(
+  gender TEXT NOT NULL,
+  age_bucket INTEGER NOT NULL,
+  shard INTEGER NOT NULL,
+  count BIGINT NOT NULL,
+  PRIMARY KEY (gender, age_bucket, shard)
+);
+
+-- Statement level triggers with transition tables: a bulk statement applies
+-- one aggregated delta per (gender, age_bucket) to the shard of its backend,
+-- locked in key order.
+CREATE FUNCTION customer_stats_apply_insert() RETURNS trigger AS $$
+BEGIN
+  INSERT INTO customer_stats AS s (gender, age_bucket, shard, count)
+  SELECT gender, age / 10 * 10, pg_backend_pid() % 16, count(*)
+  FROM new_rows
+  GROUP BY 1, 2
+  ORDER BY 1, 2
+  ON CONFLICT (gender, age_bucket, shard) DO UPDATE SET count = s.count + EXCLUDED.count;
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION customer_stats_apply_delete() RETURNS trigger AS $$
+BEGIN
+  INSERT INTO customer_stats AS s (gender, age_bucket, shard, count)
+  SELECT gender, age / 10 * 10, pg_backend_pid() % 16, -count(*)
+  FROM old_rows
+  GROUP BY 1, 2
+  ORDER BY 1, 2
+  ON CONFLICT (gender, age_bucket, shard) DO UPDATE SET count = s.count + EXCLUDED.count;
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION customer_stats_apply_update() RETURNS trigger AS $$
+BEGIN
+  INSERT INTO customer_stats AS s (gender, age_bucket, shard, count)
+  SELECT gender, age_bucket, pg_backend_pid() % 16, sum(delta)
+  FROM (
+    SELECT gender, age / 10 * 10 AS age_bucket, 1 AS delta FROM new_rows
+    UNION ALL
+    SELECT gender, age / 10 * 10 AS age_bucket, -1 AS delta FROM old_rows
+  ) changes
+  GROUP BY 1, 2
+  HAVING sum(delta) <> 0
+  ORDER BY 1, 2
+  ON CONFLICT (gender, age_bucket, shard) DO UPDATE SET count = s.count + EXCLUDED.count;
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION customer_stats_truncate() RETURNS trigger AS $$
+BEGIN
+  DELETE FROM customer_stats;
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER customer_stats_insert
+AFTER INSERT ON customer
+REFERENCING NEW TABLE AS new_rows
+FOR EACH STATEMENT EXECUTE FUNCTION customer_stats_apply_insert();
+
+CREATE TRIGGER customer_stats_delete
+AFTER DELETE ON customer
+REFERENCING OLD TABLE AS old_rows
+FOR EACH STATEMENT EXECUTE FUNCTION customer_stats_apply_delete();
+
+-- updates that keep every row in its bucket (name, email, ...) write nothing
+CREATE TRIGGER customer_stats_update
+AFTER UPDATE ON customer
+REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+FOR EACH STATEMENT EXECUTE FUNCTION customer_stats_apply_update();
+
+CREATE TRIGGER customer_stats_truncate
+AFTER TRUNCATE ON customer
+FOR EACH STATEMENT EXECUTE FUNCTION customer_stats_truncate();
+
+INSERT INTO customer_stats(gender, age_bucket, shard, count)
+SELECT gender, age / 10 * 10, 0, count(*)
+FROM customer
+GROUP BY 1, 2;
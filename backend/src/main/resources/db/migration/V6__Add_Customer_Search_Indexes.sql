@@ -0,0 +1,9 @@
+-- Built CONCURRENTLY so writers to customer are not blocked meanwhile, which
+-- cannot run in a transaction, see the .conf next to this file. An index left
+-- INVALID by a failed build has to be dropped before the migration is retried.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX CONCURRENTLY customer_name_trgm_idx ON customer USING gin (name gin_trgm_ops);
+
+CREATE INDEX CONCURRENTLY customer_email_trgm_idx ON customer USING gin (email gin_trgm_ops);
@@ -0,0 +1,12 @@
+-- Built CONCURRENTLY outside a transaction like the V6 indexes, see the .conf
+-- next to this file.
+
+-- Keyset pages sort by (key, id); the leading gender column serves the
+-- gender filter, the age column the age range.
+CREATE INDEX CONCURRENTLY customer_gender_age_id_idx ON customer (gender, age, id);
+
+CREATE INDEX CONCURRENTLY customer_gender_name_id_idx ON customer (gender, name, id);
+
+CREATE INDEX CONCURRENTLY customer_age_id_idx ON customer (age, id);
+
+CREATE INDEX CONCURRENTLY customer_name_id_idx ON customer (name, id);
@@ -0,0 +1,4 @@
+-- Hibernate reserves 50 ids per nextval (pooled-lo), see Customer.id.
+-- The JDBC inserts reserve blocks the same way (CustomerIdPool), an insert
+-- relying on the column default spends a whole block.
+ALTER SEQUENCE customer_id_seq INCREMENT BY 50;
@@ -0,0 +1,68 @@
+-- Every statement changing customer notifies the customer_change channel
+-- with OPERATION:id,id,... in payloads of at most 500 ids, well below the
+-- 8000 byte limit, however many rows the statement touched: a 10000 row bulk
+-- delete is 20 notifications, far below what the notification queue holds.
+-- Notifications are only delivered on commit. Only TRUNCATE sends RESET.
+CREATE FUNCTION customer_change_notify(operation TEXT, ids BIGINT[]) RETURNS void AS $$
+DECLARE
+  part TEXT;
+BEGIN
+  IF cardinality(ids) = 0 THEN
+    RETURN;
+  END IF;
+  FOR part IN
+    SELECT string_agg(id::TEXT, ',' ORDER BY id)
+    FROM unnest(ids) WITH ORDINALITY AS changed(id, n)
+    GROUP BY (n - 1) / 500
+  LOOP
+    PERFORM pg_notify('customer_change', operation || ':' || part);
+  END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION customer_change_insert() RETURNS trigger AS $$
+BEGIN
+  PERFORM customer_change_notify('CREATED', ARRAY(SELECT id FROM new_rows));
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION customer_change_update() RETURNS trigger AS $$
+BEGIN
+  PERFORM customer_change_notify('UPDATED', ARRAY(SELECT id FROM new_rows));
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION customer_change_delete() RETURNS trigger AS $$
+BEGIN
+  PERFORM customer_change_notify('DELETED', ARRAY(SELECT id FROM old_rows));
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION customer_change_truncate() RETURNS trigger AS $$
+BEGIN
+  PERFORM pg_notify('customer_change', 'RESET:');
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER customer_change_insert
+AFTER INSERT ON customer
+REFERENCING NEW TABLE AS new_rows
+FOR EACH STATEMENT EXECUTE FUNCTION customer_change_insert();
+
+CREATE TRIGGER customer_change_update
+AFTER UPDATE ON customer
+REFERENCING NEW TABLE AS new_rows
+FOR EACH STATEMENT EXECUTE FUNCTION customer_change_update();
+
+CREATE TRIGGER customer_change_delete
+AFTER DELETE ON customer
+REFERENCING OLD TABLE AS old_rows
+FOR EACH STATEMENT EXECUTE FUNCTION customer_change_delete();
+
+CREATE TRIGGER customer_change_truncate
+AFTER TRUNCATE ON customer
+FOR EACH STATEMENT EXECUTE FUNCTION customer_change_truncate();
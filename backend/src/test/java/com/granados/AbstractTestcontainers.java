@@ -12,6 +12,7 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import javax.sql.DataSource;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -24,7 +25,7 @@ public abstract class AbstractTestcontainers {
                 postgresSQLContainer.getJdbcUrl(),
                 postgresSQLContainer.getUsername(),
                 postgresSQLContainer.getPassword()
-        ).load();
+        ).configuration(Map.of("flyway.postgresql.transactional.lock", "false")).load();
         flyway.migrate();
         System.out.println();
     }
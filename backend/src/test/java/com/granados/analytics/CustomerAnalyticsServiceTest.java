@@ -0,0 +1,88 @@
+package com.granados.analytics;
+
+import com.granados.customer.CustomerChangeEvent;
+import com.granados.exception.RequestValidationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerAnalyticsServiceTest {
+
+    private static final CustomerAnalyticsQuery ALL = new CustomerAnalyticsQuery(
+            null, null, null, null, GroupBy.NONE, 10, 100
+    );
+
+    @Mock
+    private CustomerSnapshotLoader loader;
+    private CustomerAnalyticsService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerAnalyticsService(loader, Duration.ofHours(1));
+    }
+
+    @Test
+    void refreshOnlyReloadsChangedAndNewCustomers() {
+        // Given
+        doAnswer(invocation -> {
+            CustomerColumns columns = invocation.getArgument(1);
+            columns.add(1, 28, "MALE", "gmail.com");
+            columns.add(2, 12, "MALE", "gmail.com");
+            return null;
+        }).when(loader).loadAfter(eq(0), any());
+        underTest.refresh();
+
+        doAnswer(invocation -> {
+            CustomerColumns columns = invocation.getArgument(1);
+            columns.add(3, 30, "FEMALE", "yahoo.com");
+            return null;
+        }).when(loader).loadAfter(eq(2), any());
+
+        // When
+        underTest.onCustomerChange(CustomerChangeEvent.deleted(List.of(2)));
+        underTest.refresh();
+
+        // Then
+        verify(loader).loadByIds(eq(new int[]{2}), any());
+        verify(loader, times(1)).loadAfter(eq(0), any());
+        assertThat(underTest.query(ALL).matched()).isEqualTo(2);
+        assertThat(underTest.query(ALL).snapshotSize()).isEqualTo(2);
+    }
+
+    @Test
+    void resetEventTriggersFullRebuild() {
+        // Given
+        underTest.refresh();
+
+        // When
+        underTest.onCustomerChange(CustomerChangeEvent.reset());
+        underTest.refresh();
+
+        // Then
+        verify(loader, times(2)).loadAfter(eq(0), any());
+        verify(loader, never()).loadByIds(any(), any());
+    }
+
+    @Test
+    void willThrowWhenAgeBucketIsNotPositive() {
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.query(new CustomerAnalyticsQuery(
+                null, null, null, null, GroupBy.AGE, 0, 100
+        )))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("ageBucket must be greater than 0");
+    }
+}
@@ -0,0 +1,109 @@
+package com.granados.analytics;
+
+import com.granados.customer.Gender;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerSnapshotTest {
+
+    @Test
+    void canGroupByGenderWithFilters() {
+        // Given
+        CustomerColumns columns = new CustomerColumns(4);
+        columns.add(1, 28, "MALE", "gmail.com");
+        columns.add(2, 12, "MALE", "gmail.com");
+        columns.add(3, 30, "FEMALE", "gmail.com");
+        columns.add(4, 35, "FEMALE", "yahoo.com");
+        CustomerSnapshot underTest = CustomerSnapshot.of(columns);
+
+        // When
+        CustomerAnalyticsResponse actual = underTest.query(new CustomerAnalyticsQuery(
+                18, null, null, "gmail.com", GroupBy.GENDER, 10, 100
+        ));
+
+        // Then
+        assertThat(actual.matched()).isEqualTo(2);
+        assertThat(actual.groups()).containsExactlyInAnyOrder(
+                new CustomerAnalyticsResponse.Group("MALE", 1),
+                new CustomerAnalyticsResponse.Group("FEMALE", 1)
+        );
+        assertThat(actual.snapshotSize()).isEqualTo(4);
+    }
+
+    @Test
+    void willMatchNothingForUnknownDomain() {
+        // Given
+        CustomerColumns columns = new CustomerColumns(1);
+        columns.add(1, 28, "MALE", "gmail.com");
+
+        // When
+        CustomerAnalyticsResponse actual = CustomerSnapshot.of(columns).query(new CustomerAnalyticsQuery(
+                null, null, null, "hotmail.com", GroupBy.NONE, 10, 100
+        ));
+
+        // Then
+        assertThat(actual.matched()).isZero();
+        assertThat(actual.groups()).isEmpty();
+    }
+
+    @Test
+    void applyReplacesInsertsAndRemovesRows() {
+        // Given
+        CustomerColumns columns = new CustomerColumns(3);
+        columns.add(1, 28, "MALE", "gmail.com");
+        columns.add(2, 12, "MALE", "gmail.com");
+        columns.add(3, 30, "FEMALE", "gmail.com");
+        CustomerSnapshot snapshot = CustomerSnapshot.of(columns);
+
+        CustomerColumns upserts = new CustomerColumns(2);
+        upserts.add(1, 41, "MALE", "outlook.com");
+        upserts.add(4, 22, "FEMALE", "gmail.com");
+
+        // When
+        CustomerSnapshot underTest = snapshot.apply(upserts, Set.of(2));
+
+        // Then
+        assertThat(underTest.size()).isEqualTo(3);
+        assertThat(underTest.maxId()).isEqualTo(4);
+        assertThat(underTest.query(new CustomerAnalyticsQuery(
+                null, null, null, null, GroupBy.AGE, 10, 100
+        )).groups()).containsExactlyInAnyOrder(
+                new CustomerAnalyticsResponse.Group("20-29", 1),
+                new CustomerAnalyticsResponse.Group("30-39", 1),
+                new CustomerAnalyticsResponse.Group("40-49", 1)
+        );
+        assertThat(underTest.query(new CustomerAnalyticsQuery(
+                null, null, null, "outlook.com", GroupBy.NONE, 10, 100
+        )).matched()).isEqualTo(1);
+        assertThat(snapshot.size()).isEqualTo(3);
+    }
+
+    @Test
+    void parallelQueryMatchesSequentialCounts() {
+        // Given
+        int rows = 200_000;
+        CustomerColumns columns = new CustomerColumns(rows);
+        for (int id = 1; id <= rows; id++) {
+            columns.add(id, id % 100, id % 3 == 0 ? "FEMALE" : "MALE", "domain" + id % 7 + ".com");
+        }
+        CustomerSnapshot underTest = CustomerSnapshot.of(columns);
+
+        // When
+        CustomerAnalyticsResponse actual = underTest.query(new CustomerAnalyticsQuery(
+                50, null, Gender.FEMALE, null, GroupBy.DOMAIN, 10, 3
+        ));
+
+        // Then
+        long expected = 0;
+        for (int id = 1; id <= rows; id++) {
+            if (id % 100 >= 50 && id % 3 == 0) {
+                expected++;
+            }
+        }
+        assertThat(actual.matched()).isEqualTo(expected);
+        assertThat(actual.groups()).hasSize(3);
+    }
+}
@@ -0,0 +1,110 @@
+package com.granados.customer;
+
+import com.granados.exception.RequestValidationException;
+import com.granados.security.BatchPasswordEncoder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static com.granados.customer.CustomerBatchResult.Status.CREATED;
+import static com.granados.customer.CustomerBatchResult.Status.DUPLICATE;
+import static com.granados.customer.CustomerBatchResult.Status.INVALID;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerBatchServiceTest {
+
+    @Mock
+    private CustomerDao customerDao;
+    @Mock
+    private BatchPasswordEncoder batchPasswordEncoder;
+    private CustomerBatchService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerBatchService(customerDao, batchPasswordEncoder);
+    }
+
+    @Test
+    void canRegisterCustomers() {
+        // Given
+        List<CustomerRegistrationRequest> requests = List.of(
+                new CustomerRegistrationRequest("German", "german@gmail.com", "password", 28, Gender.MALE),
+                new CustomerRegistrationRequest("Mateo", "mateo@gmail.com", "password", 12, Gender.MALE),
+                new CustomerRegistrationRequest("Ana", "ana@gmail.com", "password", 30, Gender.FEMALE),
+                new CustomerRegistrationRequest("German", "german@gmail.com", "password", 28, Gender.MALE),
+                new CustomerRegistrationRequest(null, "nobody@gmail.com", "password", 30, Gender.FEMALE)
+        );
+
+        when(customerDao.selectExistingEmails(any())).thenReturn(Set.of("mateo@gmail.com"));
+        when(batchPasswordEncoder.encodeAll(List.of("password", "password")))
+                .thenReturn(List.of("hash-1", "hash-2"));
+        when(customerDao.insertCustomers(any())).thenReturn(new int[]{1, 0});
+
+        // When
+        List<CustomerBatchResult> actual = underTest.registerCustomers(requests);
+
+        // Then
+        assertThat(actual)
+                .extracting(CustomerBatchResult::status)
+                .containsExactly(CREATED, DUPLICATE, DUPLICATE, DUPLICATE, INVALID);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Customer>> customersCaptor = ArgumentCaptor.forClass(List.class);
+        verify(customerDao).insertCustomers(customersCaptor.capture());
+
+        assertThat(customersCaptor.getValue())
+                .extracting(Customer::getEmail, Customer::getPassword)
+                .containsExactly(
+                        tuple("german@gmail.com", "hash-1"),
+                        tuple("ana@gmail.com", "hash-2")
+                );
+    }
+
+    @Test
+    void willNotInsertWhenEveryEmailIsTaken() {
+        // Given
+        List<CustomerRegistrationRequest> requests = List.of(
+                new CustomerRegistrationRequest("German", "german@gmail.com", "password", 28, Gender.MALE)
+        );
+
+        when(customerDao.selectExistingEmails(any())).thenReturn(Set.of("german@gmail.com"));
+
+        // When
+        List<CustomerBatchResult> actual = underTest.registerCustomers(requests);
+
+        // Then
+        assertThat(actual).extracting(CustomerBatchResult::status).containsExactly(DUPLICATE);
+        verifyNoInteractions(batchPasswordEncoder);
+        verify(customerDao, never()).insertCustomers(any());
+    }
+
+    @Test
+    void willThrowWhenBatchIsTooLarge() {
+        // Given
+        List<CustomerRegistrationRequest> requests = Collections.nCopies(
+                CustomerBatchService.MAX_BATCH_SIZE + 1,
+                new CustomerRegistrationRequest("German", "german@gmail.com", "password", 28, Gender.MALE)
+        );
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.registerCustomers(requests))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("at most %s customers can be registered at once"
+                        .formatted(CustomerBatchService.MAX_BATCH_SIZE));
+
+        verifyNoInteractions(customerDao);
+    }
+}
@@ -0,0 +1,47 @@
+package com.granados.customer;
+
+import com.granados.AbstractTestcontainers;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerChangeCountJDBCDataAccessServiceTest extends AbstractTestcontainers {
+
+    private static final JdbcTemplate jdbcTemplate = getJdbcTemplate();
+
+    private final CustomerChangeCountJDBCDataAccessService underTest =
+            new CustomerChangeCountJDBCDataAccessService(jdbcTemplate);
+    private final CustomerJDBCDataAccessService customerDataAccessService =
+            new CustomerJDBCDataAccessService(jdbcTemplate, new CustomerRowMapper(), new CustomerDTORowMapper());
+
+    @Test
+    void growsWithEveryChange() {
+        // Given
+        long before = underTest.selectChangeCount();
+
+        // When
+        Integer id = customerDataAccessService.insertCustomer(new Customer(
+                FAKER.name().fullName(),
+                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                "password", 30,
+                Gender.FEMALE
+        )).orElseThrow();
+        long afterInsert = underTest.selectChangeCount();
+        Customer update = new Customer();
+        update.setId(id);
+        update.setAge(31);
+        customerDataAccessService.updateCustomer(update);
+        long afterUpdate = underTest.selectChangeCount();
+        customerDataAccessService.deleteCustomerById(id);
+        long afterDelete = underTest.selectChangeCount();
+
+        // Then
+        assertThat(afterInsert).isGreaterThan(before);
+        assertThat(afterUpdate).isGreaterThan(afterInsert);
+        assertThat(afterDelete).isGreaterThan(afterUpdate);
+        assertThat(underTest.selectChangeCount()).isEqualTo(afterDelete);
+    }
+}
@@ -0,0 +1,151 @@
+package com.granados.customer;
+
+import com.granados.AbstractTestcontainers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerChangeListenerTest extends AbstractTestcontainers {
+
+    private static final JdbcTemplate jdbcTemplate = getJdbcTemplate();
+    private final BlockingQueue<CustomerChangeEvent> events = new LinkedBlockingQueue<>();
+    private CustomerChangeListener underTest;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        underTest = new CustomerChangeListener(
+                jdbcTemplate.getDataSource(),
+                event -> events.add((CustomerChangeEvent) event),
+                Duration.ofMillis(100),
+                Duration.ofSeconds(30)
+        );
+        underTest.start();
+        awaitListening();
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.stop();
+    }
+
+    @Test
+    void parsesNotificationPayloads() {
+        // When
+        // Then
+        assertThat(CustomerChangeListener.parse("UPDATED:1,2"))
+                .isEqualTo(new CustomerChangeEvent(CustomerChangeEvent.Operation.UPDATED, List.of(1, 2)));
+        assertThat(CustomerChangeListener.parse("RESET:")).isEqualTo(CustomerChangeEvent.reset());
+        assertThat(CustomerChangeListener.parse("CREATED:")).isNull();
+        assertThat(CustomerChangeListener.parse("MERGED:1")).isNull();
+    }
+
+    @Test
+    void republishesCommittedChanges() throws Exception {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Integer id = jdbcTemplate.queryForObject("""
+                INSERT INTO customer(name, email, password, age, gender)
+                VALUES ('Ana', ?, 'password', 30, 'FEMALE')
+                RETURNING id
+                """, Integer.class, email);
+
+        // When
+        jdbcTemplate.update("UPDATE customer SET age = 31 WHERE id = ?", id);
+        jdbcTemplate.update("DELETE FROM customer WHERE id = ?", id);
+
+        // Then
+        assertThat(nextEventFor(id)).isEqualTo(
+                new CustomerChangeEvent(CustomerChangeEvent.Operation.CREATED, List.of(id)));
+        assertThat(nextEventFor(id)).isEqualTo(
+                new CustomerChangeEvent(CustomerChangeEvent.Operation.UPDATED, List.of(id)));
+        assertThat(nextEventFor(id)).isEqualTo(
+                new CustomerChangeEvent(CustomerChangeEvent.Operation.DELETED, List.of(id)));
+    }
+
+    @Test
+    void publishesIdsOfLargeStatementsInChunks() throws Exception {
+        // Given
+        String prefix = UUID.randomUUID().toString();
+        List<Integer> ids = jdbcTemplate.queryForList("""
+                INSERT INTO customer(name, email, password, age, gender)
+                SELECT 'Ana', ? || '-' || n || '@gmail.com', 'password', 30, 'FEMALE'
+                FROM generate_series(1, 1200) AS n
+                RETURNING id
+                """, Integer.class, prefix);
+
+        // When
+        jdbcTemplate.update("DELETE FROM customer WHERE email LIKE ?", prefix + "-%");
+
+        // Then
+        assertThat(idsOf(CustomerChangeEvent.Operation.CREATED, ids.size()))
+                .containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(idsOf(CustomerChangeEvent.Operation.DELETED, ids.size()))
+                .containsExactlyInAnyOrderElementsOf(ids);
+    }
+
+    @Test
+    void publishesResetAfterReconnecting() throws Exception {
+        // Given
+        jdbcTemplate.query("""
+                SELECT pg_terminate_backend(pid)
+                FROM pg_stat_activity
+                WHERE query = 'LISTEN customer_change'
+                """, rs -> {
+        });
+
+        // When
+        CustomerChangeEvent actual = events.poll(10, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(actual).isEqualTo(CustomerChangeEvent.reset());
+        awaitListening();
+    }
+
+    private CustomerChangeEvent nextEventFor(Integer id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            CustomerChangeEvent event = events.poll(100, TimeUnit.MILLISECONDS);
+            if (event != null && event.customerIds().contains(id)) {
+                return event;
+            }
+        }
+        return null;
+    }
+
+    private List<Integer> idsOf(CustomerChangeEvent.Operation operation, int expected)
+            throws InterruptedException {
+        List<Integer> ids = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (ids.size() < expected && System.nanoTime() < deadline) {
+            CustomerChangeEvent event = events.poll(100, TimeUnit.MILLISECONDS);
+            if (event == null) {
+                continue;
+            }
+            assertThat(event.operation()).isNotEqualTo(CustomerChangeEvent.Operation.RESET);
+            if (event.operation() == operation) {
+                assertThat(event.customerIds()).hasSizeLessThanOrEqualTo(500);
+                ids.addAll(event.customerIds());
+            }
+        }
+        return ids;
+    }
+
+    private void awaitListening() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!underTest.isListening() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(underTest.isListening()).isTrue();
+    }
+}
@@ -0,0 +1,116 @@
+package com.granados.customer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerDTOCacheTest {
+
+    private static final VersionedCustomerDTO CUSTOMER =
+            new VersionedCustomerDTO(1, "German", "german@gmail.com", Gender.MALE, 28, 0);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void loadsOnceAndRecordsHitsAndMisses() {
+        // Given
+        CustomerDTOCache underTest = cache(Duration.ZERO);
+
+        // When
+        underTest.get(1, this::load);
+        Optional<VersionedCustomerDTO> actual = underTest.get(1, this::load);
+
+        // Then
+        assertThat(actual).contains(CUSTOMER);
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get(CustomerDTOCache.LOOKUP_TIMER).tag("result", "hit").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get(CustomerDTOCache.LOOKUP_TIMER).tag("result", "miss").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", CustomerDTOCache.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void doesNotCacheMissingCustomers() {
+        // Given
+        CustomerDTOCache underTest = cache(Duration.ZERO);
+
+        // When
+        underTest.get(2, this::load);
+        Optional<VersionedCustomerDTO> actual = underTest.get(2, this::load);
+
+        // Then
+        assertThat(actual).isEmpty();
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void dropsUpdatedAndDeletedCustomers() {
+        // Given
+        CustomerDTOCache underTest = cache(Duration.ZERO);
+        underTest.get(1, this::load);
+
+        // When
+        underTest.onCustomerChange(CustomerChangeEvent.updated(1));
+        underTest.get(1, this::load);
+        underTest.onCustomerChange(CustomerChangeEvent.deleted(List.of(1)));
+        underTest.get(1, this::load);
+        underTest.onCustomerChange(CustomerChangeEvent.reset());
+        underTest.get(1, this::load);
+
+        // Then
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    void doesNotCacheLoadsRacingWithAnInvalidation() {
+        // Given
+        CustomerDTOCache underTest = cache(Duration.ZERO);
+
+        // When
+        underTest.get(1, customerId -> {
+            underTest.onCustomerChange(CustomerChangeEvent.updated(customerId));
+            return load(customerId);
+        });
+        underTest.get(1, this::load);
+
+        // Then
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void doesNotCacheLoadsWithinTheReplicaLagWindow() {
+        // Given
+        CustomerDTOCache underTest = cache(Duration.ofMinutes(1));
+        underTest.onCustomerChange(CustomerChangeEvent.updated(1));
+
+        // When
+        underTest.get(1, this::load);
+        underTest.get(1, this::load);
+        underTest.get(3, this::load);
+        underTest.get(3, this::load);
+
+        // Then
+        assertThat(loads).hasValue(3);
+    }
+
+    private CustomerDTOCache cache(Duration replicaLagWindow) {
+        return new CustomerDTOCache(meterRegistry, 100, Duration.ofMinutes(10), replicaLagWindow);
+    }
+
+    private Optional<VersionedCustomerDTO> load(Integer customerId) {
+        loads.incrementAndGet();
+        return customerId == 2
+                ? Optional.empty()
+                : Optional.of(new VersionedCustomerDTO(customerId, "German", "german@gmail.com", Gender.MALE, 28, 0));
+    }
+}
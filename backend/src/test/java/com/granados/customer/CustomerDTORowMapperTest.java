@@ -0,0 +1,37 @@
+package com.granados.customer;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CustomerDTORowMapperTest {
+
+    @Test
+    void mapRow() throws SQLException {
+        // Given
+        CustomerDTORowMapper customerDTORowMapper = new CustomerDTORowMapper();
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getInt(1)).thenReturn(1);
+        when(resultSet.getString(2)).thenReturn("German");
+        when(resultSet.getString(3)).thenReturn("german@gmail.com");
+        when(resultSet.getInt(4)).thenReturn(19);
+        when(resultSet.getString(5)).thenReturn("MALE");
+
+        // When
+        CustomerDTO actual = customerDTORowMapper.mapRow(resultSet, 1);
+
+        // Then
+        CustomerDTO expected = new CustomerDTO(
+                1, "German", "german@gmail.com", Gender.MALE, 19,
+                List.of("ROLE_USER"), "german@gmail.com"
+        );
+
+        assertThat(actual).isEqualTo(expected);
+    }
+}
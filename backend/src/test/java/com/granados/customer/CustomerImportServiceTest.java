@@ -0,0 +1,102 @@
+package com.granados.customer;
+
+import com.granados.exception.RequestValidationException;
+import com.granados.security.BatchPasswordEncoder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerImportServiceTest {
+
+    @Mock
+    private CustomerJDBCDataAccessService customerJDBCDataAccessService;
+    @Mock
+    private BatchPasswordEncoder batchPasswordEncoder;
+    private CustomerImportService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerImportService(customerJDBCDataAccessService, batchPasswordEncoder, 2);
+    }
+
+    @Test
+    void canImportCustomersInChunks() throws Exception {
+        // Given
+        InputStream csv = csv("""
+                email,name,age,gender,password
+                german@gmail.com,"Granados, German",28,male,secret
+                mateo@gmail.com,Mateo,twelve,MALE,secret
+                ana@gmail.com,Ana,30,FEMALE,secret
+
+                german@gmail.com,German,28,MALE,secret
+                """);
+
+        when(batchPasswordEncoder.encodeAllAsync(anyList())).thenAnswer(invocation -> {
+            List<String> passwords = invocation.getArgument(0);
+            return CompletableFuture.completedFuture(
+                    passwords.stream().map(p -> "hash-" + p).toList());
+        });
+        when(customerJDBCDataAccessService.copyCustomersFrom(any())).thenReturn(1, 0);
+
+        // When
+        CustomerImportResult actual = underTest.importCustomers(csv);
+
+        // Then
+        assertThat(actual.chunks()).containsExactly(
+                new CustomerImportChunkResult(0, 2, 1, 0, 1),
+                new CustomerImportChunkResult(1, 2, 0, 2, 0)
+        );
+        assertThat(actual.rows()).isEqualTo(4);
+        assertThat(actual.inserted()).isEqualTo(1);
+        assertThat(actual.duplicates()).isEqualTo(2);
+        assertThat(actual.invalid()).isEqualTo(1);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Customer>> captor = ArgumentCaptor.forClass(List.class);
+        verify(customerJDBCDataAccessService, times(2)).copyCustomersFrom(captor.capture());
+
+        Customer first = captor.getAllValues().get(0).get(0);
+        assertThat(first.getName()).isEqualTo("Granados, German");
+        assertThat(first.getEmail()).isEqualTo("german@gmail.com");
+        assertThat(first.getPassword()).isEqualTo("hash-secret");
+        assertThat(first.getAge()).isEqualTo(28);
+        assertThat(first.getGender()).isEqualTo(Gender.MALE);
+    }
+
+    @Test
+    void willThrowWhenHeaderIsMissingColumns() {
+        // Given
+        InputStream csv = csv("""
+                name,email,age
+                German,german@gmail.com,28
+                """);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.importCustomers(csv))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("csv header must contain the columns [name, email, password, age, gender]");
+
+        verifyNoInteractions(customerJDBCDataAccessService);
+    }
+
+    private static InputStream csv(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
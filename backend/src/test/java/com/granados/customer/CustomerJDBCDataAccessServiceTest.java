@@ -3,7 +3,11 @@ package com.granados.customer;
 import com.granados.AbstractTestcontainers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -12,14 +16,18 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
 
+    // one pool for the whole class, each getJdbcTemplate() opens a new one
+    private static final JdbcTemplate jdbcTemplate = getJdbcTemplate();
+
     private CustomerJDBCDataAccessService underTest;
     private final CustomerRowMapper customerRowMapper = new CustomerRowMapper();
 
     @BeforeEach
     void setUp() {
         underTest = new CustomerJDBCDataAccessService(
-                getJdbcTemplate(),
-                customerRowMapper);
+                jdbcTemplate,
+                customerRowMapper,
+                new CustomerDTORowMapper());
     }
 
     @Test
@@ -39,6 +47,64 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
         assertThat(actual).isNotEmpty();
     }
 
+    @Test
+    void selectCustomersAfter() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            underTest.insertCustomer(new Customer(
+                    FAKER.name().fullName(),
+                    FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                    "password", FAKER.random().nextInt(19, 100),
+                    FAKER.options().option(Gender.MALE, Gender.FEMALE)
+            ));
+        }
+
+        List<CustomerDTO> firstPage = underTest.selectCustomerDTOsAfter(null, 2);
+        Integer lastId = firstPage.get(firstPage.size() - 1).id();
+
+        // When
+        List<CustomerDTO> actual = underTest.selectCustomerDTOsAfter(lastId, 2);
+
+        // Then
+        assertThat(firstPage).hasSize(2);
+        assertThat(actual).isNotEmpty()
+                .allSatisfy(c -> assertThat(c.id()).isGreaterThan(lastId));
+        assertThat(actual).extracting(CustomerDTO::id).isSorted();
+    }
+
+    @Test
+    void selectCustomerDTOsFiltersAndContinuesAfterKeyset() {
+        // Given
+        for (int i = 0; i < 4; i++) {
+            underTest.insertCustomer(new Customer(
+                    FAKER.name().fullName(),
+                    FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                    "password", 40 + i % 2,
+                    Gender.FEMALE
+            ));
+        }
+        CustomerQuery query = new CustomerQuery(
+                Gender.FEMALE, 40, 41, CustomerSort.AGE, true, null, 2);
+
+        List<CustomerDTO> firstPage = underTest.selectCustomerDTOs(query);
+        CustomerDTO last = firstPage.get(firstPage.size() - 1);
+
+        // When
+        List<CustomerDTO> actual = underTest.selectCustomerDTOs(
+                query.page(new CustomerQuery.After(last.id(), null, last.age()), 2));
+
+        // Then
+        assertThat(firstPage).hasSize(2);
+        assertThat(actual).isNotEmpty()
+                .allSatisfy(c -> {
+                    assertThat(c.gender()).isEqualTo(Gender.FEMALE);
+                    assertThat(c.age()).isBetween(40, 41);
+                    assertThat(c.age() < last.age()
+                            || c.age().equals(last.age()) && c.id() < last.id()).isTrue();
+                });
+        assertThat(firstPage).extracting(CustomerDTO::age).isSortedAccordingTo(Comparator.reverseOrder());
+    }
+
     @Test
     void selectCustomerById() {
         // Given
@@ -71,6 +137,87 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
         });
     }
 
+    @Test
+    void selectCustomerDTOById() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                email,
+                "password", FAKER.random().nextInt(19, 100),
+                FAKER.options().option(Gender.MALE, Gender.FEMALE)
+        );
+
+        Integer id = underTest.insertCustomer(customer).orElseThrow();
+
+        // When
+        Optional<CustomerDTO> actual = underTest.selectCustomerDTOById(id);
+
+        // Then
+        assertThat(actual).contains(new CustomerDTO(
+                id, customer.getName(), email, customer.getGender(), customer.getAge()
+        ));
+        assertThat(underTest.selectAllCustomerDTOs()).contains(actual.get());
+    }
+
+    @Test
+    void selectVersionedCustomerDTOByIdBumpsVersionOnUpdate() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                email,
+                "password", FAKER.random().nextInt(19, 100),
+                FAKER.options().option(Gender.MALE, Gender.FEMALE)
+        );
+        Integer id = underTest.insertCustomer(customer).orElseThrow();
+        VersionedCustomerDTO inserted = underTest.selectVersionedCustomerDTOById(id).orElseThrow();
+
+        // When
+        Customer update = new Customer();
+        update.setId(id);
+        update.setName("foo");
+        underTest.updateCustomer(update);
+
+        // Then
+        Optional<VersionedCustomerDTO> actual = underTest.selectVersionedCustomerDTOById(id);
+        assertThat(inserted.version()).isZero();
+        assertThat(inserted.customer()).isEqualTo(new CustomerDTO(
+                id, customer.getName(), email, customer.getGender(), customer.getAge()
+        ));
+        assertThat(actual).map(VersionedCustomerDTO::version).contains(1L);
+        assertThat(actual).map(versioned -> versioned.customer().name()).contains("foo");
+    }
+
+    @Test
+    void searchCustomers() {
+        // Given
+        String token = UUID.randomUUID().toString().substring(0, 8);
+        underTest.insertCustomer(new Customer(
+                "Other", "other-" + token + "-customer@gmail.com", "password", 20, Gender.MALE
+        ));
+        underTest.insertCustomer(new Customer(
+                "Search " + token, token + "@gmail.com", "password", 20, Gender.FEMALE
+        ));
+        underTest.insertCustomer(new Customer(
+                "Wildcard", "wild%" + token + "@gmail.com", "password", 20, Gender.FEMALE
+        ));
+
+        // When
+        List<CustomerDTO> actual = underTest.searchCustomers(token.toUpperCase(), 0, 10);
+
+        // Then
+        assertThat(actual).extracting(CustomerDTO::email).containsExactlyInAnyOrder(
+                token + "@gmail.com",
+                "other-" + token + "-customer@gmail.com",
+                "wild%" + token + "@gmail.com"
+        );
+        assertThat(underTest.searchCustomers("d%" + token, 0, 10))
+                .extracting(CustomerDTO::email)
+                .containsExactly("wild%" + token + "@gmail.com");
+        assertThat(underTest.searchCustomers(token, 0, 1)).hasSize(1);
+    }
+
     @Test
     void willReturnEmptyWhenSelectCustomerById() {
         // Given
@@ -103,6 +250,120 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
         assertThat(actual).isTrue();
     }
 
+    @Test
+    void insertCustomerReturnsGeneratedId() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                email,
+                "password", FAKER.random().nextInt(19, 100),
+                FAKER.options().option(Gender.MALE, Gender.FEMALE)
+        );
+
+        // When
+        Optional<Integer> actual = underTest.insertCustomer(customer);
+
+        // Then
+        assertThat(actual).isPresent();
+        assertThat(underTest.selectCustomerById(actual.get()))
+                .isPresent()
+                .hasValueSatisfying(c -> assertThat(c.getEmail()).isEqualTo(email));
+    }
+
+    @Test
+    void insertCustomerReturnsEmptyWhenEmailIsTaken() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                email,
+                "password", FAKER.random().nextInt(19, 100),
+                FAKER.options().option(Gender.MALE, Gender.FEMALE)
+        );
+
+        underTest.insertCustomer(customer);
+
+        // When
+        Optional<Integer> actual = underTest.insertCustomer(customer);
+
+        // Then
+        assertThat(actual).isEmpty();
+    }
+
+    @Test
+    void insertCustomers() {
+        // Given
+        String takenEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        String newEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomer(new Customer(
+                FAKER.name().fullName(), takenEmail, "password", 20, Gender.MALE
+        ));
+
+        // When
+        int[] actual = underTest.insertCustomers(List.of(
+                new Customer(FAKER.name().fullName(), newEmail, "password", 20, Gender.MALE),
+                new Customer(FAKER.name().fullName(), takenEmail, "password", 20, Gender.MALE)
+        ));
+
+        // Then
+        assertThat(actual).containsExactly(1, 0);
+        assertThat(underTest.selectExistingEmails(List.of(takenEmail, newEmail, "missing@gmail.com")))
+                .containsExactlyInAnyOrder(takenEmail, newEmail);
+    }
+
+    @Test
+    void insertsTakeConsecutiveIdsFromReservedBlocks() {
+        // Given
+        String firstEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        String batchEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        String copiedEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+
+        // When
+        Integer first = underTest.insertCustomer(new Customer(
+                FAKER.name().fullName(), firstEmail, "password", 20, Gender.MALE
+        )).orElseThrow();
+        underTest.insertCustomers(List.of(
+                new Customer(FAKER.name().fullName(), batchEmail, "password", 20, Gender.MALE)
+        ));
+        underTest.copyCustomersFrom(List.of(
+                new Customer(FAKER.name().fullName(), copiedEmail, "password", 20, Gender.MALE)
+        ));
+
+        // Then
+        assertThat(underTest.selectAllCustomers())
+                .filteredOn(c -> c.getEmail().equals(batchEmail) || c.getEmail().equals(copiedEmail))
+                .extracting(Customer::getId)
+                .containsExactlyInAnyOrder(first + 1, first + 2);
+    }
+
+    @Test
+    void copyCustomersFrom() {
+        // Given
+        String takenEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        String newEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomer(new Customer(
+                FAKER.name().fullName(), takenEmail, "password", 20, Gender.MALE
+        ));
+
+        // When
+        int actual = underTest.copyCustomersFrom(List.of(
+                new Customer("O\"Brien, Ana", newEmail, "password", 30, Gender.FEMALE),
+                new Customer(FAKER.name().fullName(), newEmail, "password", 30, Gender.FEMALE),
+                new Customer(FAKER.name().fullName(), takenEmail, "password", 20, Gender.MALE)
+        ));
+
+        // Then
+        assertThat(actual).isEqualTo(1);
+        assertThat(underTest.selectAllCustomers())
+                .filteredOn(c -> c.getEmail().equals(newEmail))
+                .singleElement()
+                .satisfies(c -> {
+                    assertThat(c.getAge()).isEqualTo(30);
+                    assertThat(c.getGender()).isEqualTo(Gender.FEMALE);
+                });
+    }
+
     @Test
     void existsPersonWithEmailReturnsFalseWhenDoesNotExists() {
         // Given
@@ -183,6 +444,43 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
         assertThat(actual).isNotPresent();
     }
 
+    @Test
+    void deleteCustomerByIdReturnsFalseWhenIdNotPresent() {
+        // Given
+        int id = -1;
+
+        // When
+        boolean actual = underTest.deleteCustomerById(id);
+
+        // Then
+        assertThat(actual).isFalse();
+    }
+
+    @Test
+    void deleteCustomersByIds() {
+        // Given
+        Integer first = underTest.insertCustomer(new Customer(
+                FAKER.name().fullName(),
+                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                "password", 20,
+                FAKER.options().option(Gender.MALE, Gender.FEMALE)
+        )).orElseThrow();
+        Integer second = underTest.insertCustomer(new Customer(
+                FAKER.name().fullName(),
+                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                "password", 20,
+                FAKER.options().option(Gender.MALE, Gender.FEMALE)
+        )).orElseThrow();
+
+        // When
+        List<Integer> actual = underTest.deleteCustomersByIds(List.of(first, second, -1));
+
+        // Then
+        assertThat(actual).containsExactlyInAnyOrder(first, second);
+        assertThat(underTest.existsCustomerWithId(first)).isFalse();
+        assertThat(underTest.existsCustomerWithId(second)).isFalse();
+    }
+
     @Test
     void updateCustomerName() {
         // Given
@@ -347,6 +645,46 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
         assertThat(actual).isPresent().hasValue(update);
     }
 
+    @Test
+    void willOnlyUpdateModifiedColumns() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                email,
+                "password", 20,
+                Gender.MALE
+        );
+
+        underTest.insertCustomer(customer);
+
+        int id = underTest.selectAllCustomers()
+                .stream()
+                .filter(c -> c.getEmail().equals(email))
+                .map(Customer::getId)
+                .findFirst()
+                .orElseThrow();
+
+        // values given through the constructor are not tracked as modified
+        Customer update = new Customer(
+                id, "bar", email, "password", 99, Gender.FEMALE
+        );
+        update.setAge(30);
+
+        // When
+        underTest.updateCustomer(update);
+
+        // Then
+        Optional<Customer> actual = underTest.selectCustomerById(id);
+
+        assertThat(actual).isPresent().hasValueSatisfying(c -> {
+            assertThat(c.getName()).isEqualTo(customer.getName());
+            assertThat(c.getAge()).isEqualTo(30);
+            assertThat(c.getGender()).isEqualTo(Gender.MALE);
+        });
+        assertThat(update.getModifiedFields()).isEmpty();
+    }
+
     @Test
     void wilNotUpdateWhenNothingToUpdate() {
         // Given
@@ -387,4 +725,58 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
             assertThat(c.getEmail()).isEqualTo(customer.getEmail());
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void copyCustomersToCsv() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                email,
+                "password", 20,
+                FAKER.options().option(Gender.MALE, Gender.FEMALE)
+        );
+
+        underTest.insertCustomer(customer);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long rows = underTest.copyCustomersTo(CustomerExportFormat.CSV, out);
+
+        // Then
+        String csv = out.toString(StandardCharsets.UTF_8);
+        assertThat(rows).isPositive();
+        assertThat(csv).startsWith("id,name,email,age,gender");
+        assertThat(csv).contains(email);
+        assertThat(csv).doesNotContain("password");
+    }
+
+    @Test
+    void copyCustomersToNdjson() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                "Ana \"Anita\" Perez",
+                email,
+                "password", 20,
+                Gender.FEMALE
+        );
+
+        underTest.insertCustomer(customer);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        underTest.copyCustomersTo(CustomerExportFormat.NDJSON, out);
+
+        // Then
+        String line = out.toString(StandardCharsets.UTF_8)
+                .lines()
+                .filter(l -> l.contains(email))
+                .findFirst()
+                .orElseThrow();
+
+        assertThat(line).startsWith("{").endsWith("}");
+        assertThat(line).contains("\"name\" : \"Ana \\\"Anita\\\" Perez\"");
+        assertThat(line).doesNotContain("password");
+    }
+}
@@ -5,8 +5,20 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class CustomerJPADataAccessServiceTest {
 
@@ -35,6 +47,41 @@ class CustomerJPADataAccessServiceTest {
         verify(customerRepository).findAll();
     }
 
+    @Test
+    void selectAllCustomerDTOs() {
+        // When
+        underTest.selectAllCustomerDTOs();
+
+        // Then
+        verify(customerRepository).findAllCustomerDTOs();
+    }
+
+    @Test
+    void selectCustomerDTOsAfter() {
+        // Given
+        Integer afterId = 10;
+        int limit = 5;
+
+        // When
+        underTest.selectCustomerDTOsAfter(afterId, limit);
+
+        // Then
+        verify(customerRepository).findCustomerDTOsAfter(afterId, PageRequest.ofSize(limit));
+    }
+
+    @Test
+    void selectCustomerDTOs() {
+        // Given
+        CustomerQuery query = new CustomerQuery(
+                Gender.MALE, 18, null, CustomerSort.NAME, false, null, 5);
+
+        // When
+        underTest.selectCustomerDTOs(query);
+
+        // Then
+        verify(customerRepository).findCustomerDTOs(any(), eq(query));
+    }
+
     @Test
     void selectCustomerById() {
         // Given
@@ -47,6 +94,39 @@ class CustomerJPADataAccessServiceTest {
         verify(customerRepository).findById(id);
     }
 
+    @Test
+    void selectCustomerDTOById() {
+        // Given
+        Integer id = 1;
+
+        // When
+        underTest.selectCustomerDTOById(id);
+
+        // Then
+        verify(customerRepository).findCustomerDTOById(id);
+    }
+
+    @Test
+    void selectVersionedCustomerDTOById() {
+        // Given
+        Integer id = 1;
+
+        // When
+        underTest.selectVersionedCustomerDTOById(id);
+
+        // Then
+        verify(customerRepository).findVersionedCustomerDTOById(id);
+    }
+
+    @Test
+    void searchCustomers() {
+        // When
+        underTest.searchCustomers("ger_", 10, 5);
+
+        // Then
+        verify(customerRepository).searchCustomers("ger_", "%ger\\_%", 10, 5);
+    }
+
     @Test
     void insertCustomer() {
         // Given
@@ -57,7 +137,49 @@ class CustomerJPADataAccessServiceTest {
         underTest.insertCustomer(customer);
 
         // Then
-        verify(customerRepository).save(customer);
+        verify(customerRepository).insertCustomerIfEmailAbsent(
+                customer.getName(),
+                customer.getEmail(),
+                customer.getPassword(),
+                customer.getAge(),
+                customer.getGender().name()
+        );
+    }
+
+    @Test
+    void insertCustomersSavesCustomersWithFreeEmailsInOneBatch() {
+        // Given
+        Customer german = new Customer("German", "german@gmail.com", "password", 28, Gender.MALE);
+        Customer taken = new Customer("Mateo", "mateo@gmail.com", "password", 12, Gender.MALE);
+        Customer repeated = new Customer("Other", "german@gmail.com", "password", 40, Gender.MALE);
+        when(customerRepository.findExistingEmails(any())).thenReturn(Set.of("mateo@gmail.com"));
+
+        // When
+        int[] actual = underTest.insertCustomers(List.of(german, taken, repeated));
+
+        // Then
+        assertThat(actual).containsExactly(1, 0, 0);
+        verify(customerRepository).saveAll(List.of(german));
+        verify(customerRepository, never()).insertCustomerIfEmailAbsent(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void insertCustomersFallsBackToSingleInsertsWhenBatchHitsTakenEmail() {
+        // Given
+        Customer german = new Customer("German", "german@gmail.com", "password", 28, Gender.MALE);
+        Customer ana = new Customer("Ana", "ana@gmail.com", "password", 30, Gender.FEMALE);
+        when(customerRepository.findExistingEmails(any())).thenReturn(Set.of());
+        when(customerRepository.saveAll(any())).thenThrow(new DataIntegrityViolationException("taken"));
+        when(customerRepository.insertCustomerIfEmailAbsent(
+                "German", "german@gmail.com", "password", 28, "MALE")).thenReturn(Optional.empty());
+        when(customerRepository.insertCustomerIfEmailAbsent(
+                "Ana", "ana@gmail.com", "password", 30, "FEMALE")).thenReturn(Optional.of(7));
+
+        // When
+        int[] actual = underTest.insertCustomers(List.of(german, ana));
+
+        // Then
+        assertThat(actual).containsExactly(0, 1);
     }
 
     @Test
@@ -71,6 +193,17 @@ class CustomerJPADataAccessServiceTest {
         verify(customerRepository).existsCustomerByEmail(email);
     }
 
+    @Test
+    void selectExistingEmails() {
+        // Given
+        List<String> emails = List.of("german@gmail.com");
+        // When
+        underTest.selectExistingEmails(emails);
+
+        // Then
+        verify(customerRepository).findExistingEmails(emails);
+    }
+
     @Test
     void existsCustomerWithId() {
         // Given
@@ -90,7 +223,18 @@ class CustomerJPADataAccessServiceTest {
         underTest.deleteCustomerById(id);
 
         // Then
-        verify(customerRepository).deleteById(id);
+        verify(customerRepository).deleteCustomerById(id);
+    }
+
+    @Test
+    void deleteCustomersByIds() {
+        // Given
+        List<Integer> ids = List.of(1, 2);
+        // When
+        underTest.deleteCustomersByIds(ids);
+
+        // Then
+        verify(customerRepository).deleteCustomersByIds(ids);
     }
 
     @Test
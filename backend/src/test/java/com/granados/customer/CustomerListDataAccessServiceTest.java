@@ -0,0 +1,169 @@
+package com.granados.customer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerListDataAccessServiceTest {
+
+    private CustomerListDataAccessService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerListDataAccessService();
+    }
+
+    @Test
+    void insertCustomerAssignsIdAndRejectsTakenEmail() {
+        // Given
+        Customer customer = new Customer("Ana", "ana@gmail.com", "password", 30, Gender.FEMALE);
+
+        // When
+        Optional<Integer> actual = underTest.insertCustomer(customer);
+
+        // Then
+        assertThat(actual).isPresent();
+        assertThat(underTest.selectUserByEmail("ana@gmail.com"))
+                .map(Customer::getId)
+                .isEqualTo(actual);
+        assertThat(underTest.insertCustomer(
+                new Customer("Ana", "ana@gmail.com", "password", 30, Gender.FEMALE)
+        )).isEmpty();
+    }
+
+    @Test
+    void updateCustomerReplacesCustomerAndEmailIndex() {
+        // Given
+        Integer id = underTest.insertCustomer(
+                new Customer("Ana", "ana@gmail.com", "password", 30, Gender.FEMALE)
+        ).orElseThrow();
+        Customer customer = underTest.selectCustomerById(id).orElseThrow();
+        customer.setEmail("ana.maria@gmail.com");
+
+        // When
+        underTest.updateCustomer(customer);
+
+        // Then
+        assertThat(underTest.existsCustomerWithEmail("ana@gmail.com")).isFalse();
+        assertThat(underTest.selectUserByEmail("ana.maria@gmail.com"))
+                .map(Customer::getId)
+                .contains(id);
+        assertThat(underTest.selectAllCustomers())
+                .filteredOn(c -> c.getId().equals(id))
+                .hasSize(1);
+        assertThat(underTest.selectVersionedCustomerDTOById(id))
+                .map(VersionedCustomerDTO::version)
+                .contains(1L);
+    }
+
+    @Test
+    void updateCustomerWillThrowWhenEmailIsTaken() {
+        // Given
+        Customer customer = underTest.selectUserByEmail("mateo@gmail.com").orElseThrow();
+        customer.setEmail("german@gmail.com");
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.updateCustomer(customer))
+                .isInstanceOf(DuplicateKeyException.class);
+        assertThat(underTest.selectUserByEmail("mateo@gmail.com")).isPresent();
+    }
+
+    @Test
+    void storedCustomersCanNotBeChangedWithoutUpdate() {
+        // Given
+        Customer customer = underTest.selectUserByEmail("german@gmail.com").orElseThrow();
+
+        // When
+        customer.setName("Changed");
+
+        // Then
+        assertThat(underTest.selectCustomerById(customer.getId()))
+                .map(Customer::getName)
+                .contains("German");
+    }
+
+    @Test
+    void deleteCustomerRemovesIndexes() {
+        // Given
+        Integer id = underTest.selectUserByEmail("german@gmail.com").orElseThrow().getId();
+
+        // When
+        boolean actual = underTest.deleteCustomerById(id);
+
+        // Then
+        assertThat(actual).isTrue();
+        assertThat(underTest.existsCustomerWithId(id)).isFalse();
+        assertThat(underTest.existsCustomerWithEmail("german@gmail.com")).isFalse();
+        assertThat(underTest.selectCustomerDTOsAfter(null, 10))
+                .extracting(CustomerDTO::id)
+                .doesNotContain(id);
+    }
+
+    @Test
+    void selectCustomerDTOsFiltersSortsAndContinuesAfterKeyset() {
+        // Given
+        underTest.insertCustomer(new Customer("Ana", "ana@gmail.com", "password", 30, Gender.FEMALE));
+        underTest.insertCustomer(new Customer("Bruno", "bruno@gmail.com", "password", 45, Gender.MALE));
+        CustomerQuery query = new CustomerQuery(
+                Gender.MALE, 20, null, CustomerSort.NAME, false, null, 1);
+
+        // When
+        List<CustomerDTO> firstPage = underTest.selectCustomerDTOs(query);
+        CustomerDTO last = firstPage.get(0);
+        List<CustomerDTO> secondPage = underTest.selectCustomerDTOs(
+                query.page(new CustomerQuery.After(last.id(), last.name(), null), 10));
+
+        // Then
+        assertThat(firstPage).extracting(CustomerDTO::name).containsExactly("Bruno");
+        assertThat(secondPage).extracting(CustomerDTO::name).containsExactly("German");
+    }
+
+    @Test
+    void concurrentInsertsKeepEmailsUnique() throws Exception {
+        // Given
+        int threads = 8;
+        int emails = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // When
+        List<Future<Integer>> inserted;
+        try {
+            inserted = executor.invokeAll(Collections.nCopies(threads, () -> {
+                int count = 0;
+                for (int i = 0; i < emails; i++) {
+                    if (underTest.insertCustomer(new Customer(
+                            "Customer", "customer-" + i + "@gmail.com", "password", 20, Gender.MALE
+                    )).isPresent()) {
+                        count++;
+                    }
+                }
+                return count;
+            }));
+        } finally {
+            executor.shutdown();
+        }
+
+        // Then
+        int total = 0;
+        for (Future<Integer> future : inserted) {
+            total += future.get();
+        }
+        assertThat(total).isEqualTo(emails);
+        assertThat(underTest.selectAllCustomerDTOs())
+                .hasSize(emails + 2)
+                .extracting(CustomerDTO::id)
+                .doesNotHaveDuplicates()
+                .isSorted();
+    }
+}
@@ -10,6 +10,8 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Import;
 
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -103,4 +105,129 @@ class CustomerRepositoryTest extends AbstractTestcontainers {
         // Then
         assertThat(actual).isFalse();
     }
-}
\ No newline at end of file
+
+    @Test
+    void insertCustomerIfEmailAbsent() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+
+        // When
+        Optional<Integer> actual = underTest.insertCustomerIfEmailAbsent(
+                FAKER.name().fullName(), email, "password", 20, Gender.MALE.name()
+        );
+
+        // Then
+        assertThat(actual).isPresent();
+        assertThat(underTest.findCustomerByEmail(email))
+                .isPresent()
+                .hasValueSatisfying(c -> assertThat(c.getId()).isEqualTo(actual.get()));
+    }
+
+    @Test
+    void insertCustomerIfEmailAbsentReturnsEmptyWhenEmailIsTaken() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomerIfEmailAbsent(
+                FAKER.name().fullName(), email, "password", 20, Gender.MALE.name()
+        );
+
+        // When
+        Optional<Integer> actual = underTest.insertCustomerIfEmailAbsent(
+                FAKER.name().fullName(), email, "password", 30, Gender.FEMALE.name()
+        );
+
+        // Then
+        assertThat(actual).isEmpty();
+    }
+
+    @Test
+    void deleteCustomersByIds() {
+        // Given
+        Integer id = underTest.insertCustomerIfEmailAbsent(
+                FAKER.name().fullName(),
+                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                "password", 20, Gender.MALE.name()
+        ).orElseThrow();
+
+        // When
+        List<Integer> actual = underTest.deleteCustomersByIds(List.of(id, -1));
+
+        // Then
+        assertThat(actual).containsExactly(id);
+        assertThat(underTest.existsCustomerById(id)).isFalse();
+    }
+
+    @Test
+    void searchCustomers() {
+        // Given
+        String token = UUID.randomUUID().toString().substring(0, 8);
+        underTest.insertCustomerIfEmailAbsent(
+                "Search " + token, token + "@gmail.com", "password", 20, Gender.MALE.name());
+        underTest.insertCustomerIfEmailAbsent(
+                "Other", "other-" + token + "-customer@gmail.com", "password", 20, Gender.MALE.name());
+
+        // When
+        List<CustomerDTO> actual = underTest.searchCustomers(token, "%" + token + "%", 0, 10);
+
+        // Then
+        assertThat(actual).hasSize(2);
+        assertThat(actual.get(0).email()).isEqualTo(token + "@gmail.com");
+        assertThat(underTest.searchCustomers(token, "%" + token + "%", 1, 10)).hasSize(1);
+    }
+
+    @Test
+    void findCustomerDTOsPagesBySortKeyAndId() {
+        // Given
+        for (int age : List.of(30, 30, 30, 50)) {
+            underTest.save(new Customer(
+                    FAKER.name().fullName(),
+                    FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                    "password", age, Gender.MALE
+            ));
+        }
+        underTest.save(new Customer(
+                FAKER.name().fullName(),
+                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                "password", 30, Gender.FEMALE
+        ));
+        CustomerQuery query = new CustomerQuery(
+                Gender.MALE, null, 40, CustomerSort.AGE, false, null, 2);
+
+        // When
+        List<CustomerDTO> firstPage = underTest.findCustomerDTOs(
+                CustomerSpecifications.matching(query), query);
+        CustomerDTO last = firstPage.get(1);
+        CustomerQuery next = query.page(new CustomerQuery.After(last.id(), null, last.age()), 2);
+        List<CustomerDTO> secondPage = underTest.findCustomerDTOs(
+                CustomerSpecifications.matching(next), next);
+
+        // Then
+        assertThat(firstPage).hasSize(2);
+        assertThat(secondPage).hasSize(1);
+        assertThat(secondPage.get(0).id()).isGreaterThan(last.id());
+        assertThat(secondPage.get(0).gender()).isEqualTo(Gender.MALE);
+        assertThat(secondPage.get(0).age()).isEqualTo(30);
+    }
+
+    @Test
+    void saveAllTakesIdsFromOnePooledAllocation() {
+        // Given
+        List<Customer> customers = List.of(
+                new Customer(FAKER.name().fullName(), "a-" + UUID.randomUUID(), "password", 20, Gender.MALE),
+                new Customer(FAKER.name().fullName(), "b-" + UUID.randomUUID(), "password", 30, Gender.FEMALE),
+                new Customer(FAKER.name().fullName(), "c-" + UUID.randomUUID(), "password", 40, Gender.MALE)
+        );
+
+        // When
+        List<Customer> actual = underTest.saveAll(customers);
+
+        // Then
+        assertThat(actual)
+                .extracting(Customer::getId)
+                .containsExactly(
+                        actual.get(0).getId(),
+                        actual.get(0).getId() + 1,
+                        actual.get(0).getId() + 2
+                );
+    }
+}
@@ -3,6 +3,7 @@ package com.granados.customer;
 import com.granados.exception.DuplicateResourceException;
 import com.granados.exception.RequestValidationException;
 import com.granados.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.checkerframework.checker.units.qual.C;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,9 +11,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -25,12 +34,21 @@ class CustomerServiceTest {
     private CustomerDao customerDao;
     @Mock
     private PasswordEncoder passwordEncoder;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private CustomerChangeCountJDBCDataAccessService changeCountDataAccessService;
+    @Mock
+    private DataSource dataSource;
     private CustomerService underTest;
     private final CustomerDTOMapper customerDTOMapper = new CustomerDTOMapper();
 
     @BeforeEach
-    void setUp() {
-        underTest = new CustomerService(customerDao, customerDTOMapper, passwordEncoder);
+    void setUp() throws Exception {
+        lenient().when(dataSource.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        underTest = new CustomerService(customerDao, passwordEncoder, eventPublisher, new CustomerDTOCache(
+                new SimpleMeterRegistry(), 100, Duration.ofMinutes(10), Duration.ofSeconds(5)),
+                changeCountDataAccessService, new DataSourceTransactionManager(dataSource));
     }
 
     @Test
@@ -40,7 +58,125 @@ class CustomerServiceTest {
         underTest.getAllCustomers();
 
         // Then
-        verify(customerDao).selectAllCustomers();
+        verify(customerDao).selectAllCustomerDTOs();
+    }
+
+    @Test
+    void canGetCustomersPageWithNextCursor() {
+        // Given
+        int limit = 2;
+        CustomerQuery query = CustomerQuery.all(limit);
+        when(customerDao.selectCustomerDTOs(query.page(null, limit + 1))).thenReturn(List.of(
+                new CustomerDTO(1, "German", "german@gmail.com", Gender.MALE, 28),
+                new CustomerDTO(2, "Mateo", "mateo@gmail.com", Gender.MALE, 12),
+                new CustomerDTO(3, "Ana", "ana@gmail.com", Gender.FEMALE, 30)
+        ));
+
+        // When
+        CustomerPage actual = underTest.getCustomersPage(query, null);
+
+        // Then
+        assertThat(actual.customers())
+                .extracting(CustomerDTO::id)
+                .containsExactly(1, 2);
+        assertThat(actual.nextCursor()).isNotNull();
+
+        underTest.getCustomersPage(query, actual.nextCursor());
+        verify(customerDao).selectCustomerDTOs(
+                query.page(new CustomerQuery.After(2, null, null), limit + 1));
+    }
+
+    @Test
+    void canGetFilteredCustomersPageSortedByName() {
+        // Given
+        int limit = 1;
+        CustomerQuery query = new CustomerQuery(
+                Gender.MALE, 10, 30, CustomerSort.NAME, true, null, limit);
+        when(customerDao.selectCustomerDTOs(query.page(null, limit + 1))).thenReturn(List.of(
+                new CustomerDTO(2, "Mateo", "mateo@gmail.com", Gender.MALE, 12),
+                new CustomerDTO(1, "German", "german@gmail.com", Gender.MALE, 28)
+        ));
+
+        // When
+        CustomerPage actual = underTest.getCustomersPage(query, null);
+
+        // Then
+        assertThat(actual.customers())
+                .extracting(CustomerDTO::id)
+                .containsExactly(2);
+
+        underTest.getCustomersPage(query, actual.nextCursor());
+        verify(customerDao).selectCustomerDTOs(
+                query.page(new CustomerQuery.After(2, "Mateo", null), limit + 1));
+    }
+
+    @Test
+    void willNotReturnNextCursorOnLastPage() {
+        // Given
+        int limit = 2;
+        CustomerQuery query = CustomerQuery.all(limit);
+        when(customerDao.selectCustomerDTOs(query.page(null, limit + 1))).thenReturn(List.of(
+                new CustomerDTO(1, "German", "german@gmail.com", Gender.MALE, 28)
+        ));
+
+        // When
+        CustomerPage actual = underTest.getCustomersPage(query, null);
+
+        // Then
+        assertThat(actual.customers()).hasSize(1);
+        assertThat(actual.nextCursor()).isNull();
+    }
+
+    @Test
+    void willThrowWhenPageLimitIsOutOfRange() {
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.getCustomersPage(CustomerQuery.all(0), null))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("limit must be between 1 and %s".formatted(CustomerService.MAX_PAGE_SIZE));
+
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void willThrowWhenAgeRangeIsInverted() {
+        // Given
+        CustomerQuery query = new CustomerQuery(
+                null, 40, 20, CustomerSort.ID, false, null, 10);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.getCustomersPage(query, null))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("minAge [40] is greater than maxAge [20]");
+
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void willThrowWhenCursorIsInvalid() {
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.getCustomersPage(CustomerQuery.all(10), "not-a-cursor"))
+                .isInstanceOf(RequestValidationException.class);
+
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void willThrowWhenCursorWasIssuedForAnotherSort() {
+        // Given
+        String cursor = CustomerCursor.encode(
+                CustomerSort.ID, new CustomerDTO(1, "German", "german@gmail.com", Gender.MALE, 28));
+        CustomerQuery query = new CustomerQuery(
+                null, null, null, CustomerSort.AGE, false, null, 10);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.getCustomersPage(query, cursor))
+                .isInstanceOf(RequestValidationException.class);
+
+        verifyNoInteractions(customerDao);
     }
 
     @Test
@@ -50,22 +186,87 @@ class CustomerServiceTest {
         Customer customer = new Customer(
                 id, "German", "german@gmail.com", "password", 28, Gender.MALE
         );
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
+        when(customerDao.selectVersionedCustomerDTOById(id)).thenReturn(Optional.of(
+                new VersionedCustomerDTO(id, "German", "german@gmail.com", Gender.MALE, 28, 0)
+        ));
 
         // When
         CustomerDTO actual = underTest.getCustomer(id);
 
+        // the read projection must match what the entity mapper would produce
         CustomerDTO expected = customerDTOMapper.apply(customer);
 
         // Then
         assertThat(actual).isEqualTo(expected);
     }
 
+    @Test
+    void getCustomerReadsThroughTheCache() {
+        // Given
+        int id = 1;
+        when(customerDao.selectVersionedCustomerDTOById(id)).thenReturn(Optional.of(
+                new VersionedCustomerDTO(id, "German", "german@gmail.com", Gender.MALE, 28, 0)
+        ));
+
+        // When
+        CustomerDTO first = underTest.getCustomer(id);
+        CustomerDTO second = underTest.getCustomer(id);
+
+        // Then
+        assertThat(second).isEqualTo(first);
+        verify(customerDao, times(1)).selectVersionedCustomerDTOById(id);
+    }
+
+    @Test
+    void getCustomerTakesNoConnectionOnCacheHit() throws Exception {
+        // Given
+        int id = 1;
+        when(customerDao.selectVersionedCustomerDTOById(id)).thenReturn(Optional.of(
+                new VersionedCustomerDTO(id, "German", "german@gmail.com", Gender.MALE, 28, 0)
+        ));
+        underTest.getCustomer(id);
+        verify(dataSource, times(1)).getConnection();
+
+        // When
+        underTest.getCustomer(id);
+        underTest.getVersionedCustomer(id);
+
+        // Then
+        verify(dataSource, times(1)).getConnection();
+    }
+
+    @Test
+    void canGetVersionedCustomer() {
+        // Given
+        int id = 1;
+        VersionedCustomerDTO customer =
+                new VersionedCustomerDTO(id, "German", "german@gmail.com", Gender.MALE, 28, 3);
+        when(customerDao.selectVersionedCustomerDTOById(id)).thenReturn(Optional.of(customer));
+
+        // When
+        VersionedCustomerDTO actual = underTest.getVersionedCustomer(id);
+
+        // Then
+        assertThat(actual).isEqualTo(customer);
+    }
+
+    @Test
+    void canGetCustomersChangeCount() {
+        // Given
+        when(changeCountDataAccessService.selectChangeCount()).thenReturn(42L);
+
+        // When
+        long actual = underTest.getCustomersChangeCount();
+
+        // Then
+        assertThat(actual).isEqualTo(42L);
+    }
+
     @Test
     void willThrowWhenGetCustomerReturnEmptyOptional() {
         // Given
         int id = 1;
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.empty());
+        when(customerDao.selectVersionedCustomerDTOById(id)).thenReturn(Optional.empty());
 
         // When
         // Then
@@ -74,13 +275,50 @@ class CustomerServiceTest {
                 .hasMessage("customers with id [%s] does not exists".formatted(id));
     }
 
+    @Test
+    void canSearchCustomers() {
+        // Given
+        when(customerDao.searchCustomers("germ", 20, 11)).thenReturn(List.of(
+                new CustomerDTO(1, "German", "german@gmail.com", Gender.MALE, 28)
+        ));
+
+        // When
+        CustomerSearchPage actual = underTest.searchCustomers("  germ ", 2, 10);
+
+        // Then
+        assertThat(actual.customers()).extracting(CustomerDTO::id).containsExactly(1);
+        assertThat(actual.hasNext()).isFalse();
+    }
+
+    @Test
+    void willThrowWhenSearchQueryIsTooShort() {
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.searchCustomers("ge", 0, 10))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("q must be between %s and %s characters".formatted(
+                        CustomerService.MIN_SEARCH_LENGTH, CustomerService.MAX_SEARCH_LENGTH));
+
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void willThrowWhenSearchPageIsTooDeep() {
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.searchCustomers("german", Integer.MAX_VALUE, 100))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("only the first %s results can be paged"
+                        .formatted(CustomerService.MAX_SEARCH_RESULTS));
+
+        verifyNoInteractions(customerDao);
+    }
+
     @Test
     void addCustomer() {
         // Given
         String email = "german@gmail.com";
 
-        when(customerDao.existsCustomerWithEmail(email)).thenReturn(false);
-
         CustomerRegistrationRequest request = new CustomerRegistrationRequest(
                 "german", email, "password", 29, Gender.MALE
         );
@@ -88,9 +326,10 @@ class CustomerServiceTest {
         String passwordHash = "c5554ml;f;lsd";
 
         when(passwordEncoder.encode(request.password())).thenReturn(passwordHash);
+        when(customerDao.insertCustomer(any())).thenReturn(Optional.of(7));
 
         // When
-        underTest.addCustomer(request);
+        Integer actual = underTest.addCustomer(request);
 
         // Then
         ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(
@@ -98,9 +337,12 @@ class CustomerServiceTest {
         );
 
         verify(customerDao).insertCustomer(customerArgumentCaptor.capture());
+        verify(customerDao, never()).existsCustomerWithEmail(any());
 
         Customer capturedCustomer = customerArgumentCaptor.getValue();
 
+        assertThat(actual).isEqualTo(7);
+        verify(eventPublisher).publishEvent(CustomerChangeEvent.created(7));
         assertThat(capturedCustomer.getId()).isNull();
         assertThat(capturedCustomer.getName()).isEqualTo(request.name());
         assertThat(capturedCustomer.getEmail()).isEqualTo(request.email());
@@ -113,7 +355,7 @@ class CustomerServiceTest {
         // Given
         String email = "german@gmail.com";
 
-        when(customerDao.existsCustomerWithEmail(email)).thenReturn(true);
+        when(customerDao.insertCustomer(any())).thenReturn(Optional.empty());
 
         CustomerRegistrationRequest request = new CustomerRegistrationRequest(
                 "german", email, "password", 29, Gender.MALE
@@ -124,8 +366,7 @@ class CustomerServiceTest {
                 .isInstanceOf(DuplicateResourceException.class)
                 .hasMessage("email already taken");
 
-        verify(customerDao, never()).insertCustomer(any());
-
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -133,11 +374,13 @@ class CustomerServiceTest {
         // Given
         int id = 1;
 
-        when(customerDao.existsCustomerWithId(id)).thenReturn(true);
+        when(customerDao.deleteCustomerById(id)).thenReturn(true);
         // When
         underTest.deleteCustomerById(id);
         // Then
         verify(customerDao).deleteCustomerById(id);
+        verify(customerDao, never()).existsCustomerWithId(any());
+        verify(eventPublisher).publishEvent(CustomerChangeEvent.deleted(List.of(id)));
     }
 
     @Test
@@ -145,15 +388,55 @@ class CustomerServiceTest {
         // Given
         int id = 1;
 
-        when(customerDao.existsCustomerWithId(id)).thenReturn(false);
+        when(customerDao.deleteCustomerById(id)).thenReturn(false);
         // When
         // Then
         assertThatThrownBy(() -> underTest.deleteCustomerById(id))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("customer with id [%s] not found".formatted(id));
 
-        verify(customerDao, never()).deleteCustomerById(id);
+    }
+
+    @Test
+    void canDeleteCustomersByIds() {
+        // Given
+        List<Integer> ids = List.of(1, 2, 3, 2);
+
+        when(customerDao.deleteCustomersByIds(Set.of(1, 2, 3))).thenReturn(List.of(1, 3));
+        // When
+        CustomerBulkDeleteResponse actual = underTest.deleteCustomersByIds(ids);
+
+        // Then
+        assertThat(actual.deleted()).containsExactly(1, 3);
+        assertThat(actual.notFound()).containsExactly(2);
+        verify(eventPublisher).publishEvent(CustomerChangeEvent.deleted(List.of(1, 3)));
+    }
+
+    @Test
+    void willThrowWhenDeleteCustomersByIdsIsEmpty() {
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.deleteCustomersByIds(List.of()))
+                .isInstanceOf(RequestValidationException.class);
+
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void willThrowWhenDeleteCustomersByIdsIsTooLarge() {
+        // Given
+        List<Integer> ids = IntStream.rangeClosed(1, CustomerService.MAX_BULK_DELETE_SIZE + 1)
+                .boxed()
+                .toList();
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.deleteCustomersByIds(ids))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("at most %s customers can be deleted at once"
+                        .formatted(CustomerService.MAX_BULK_DELETE_SIZE));
 
+        verifyNoInteractions(customerDao);
     }
 
     @Test
@@ -186,6 +469,9 @@ class CustomerServiceTest {
         assertThat(capturedCostumer.getAge()).isEqualTo(updateRequest.age());
         assertThat(capturedCostumer.getEmail()).isEqualTo(updateRequest.email());
         assertThat(capturedCostumer.getGender()).isEqualTo(updateRequest.gender());
+        assertThat(capturedCostumer.getModifiedFields())
+                .containsExactlyInAnyOrder("name", "age", "email");
+        verify(eventPublisher).publishEvent(CustomerChangeEvent.updated(id));
     }
 
     @Test
@@ -216,6 +502,7 @@ class CustomerServiceTest {
         assertThat(capturedCostumer.getAge()).isEqualTo(customer.getAge());
         assertThat(capturedCostumer.getEmail()).isEqualTo(customer.getEmail());
         assertThat(capturedCostumer.getGender()).isEqualTo(customer.getGender());
+        assertThat(capturedCostumer.getModifiedFields()).containsExactly("name");
     }
 
     @Test
@@ -0,0 +1,117 @@
+package com.granados.customer;
+
+import com.granados.AbstractTestcontainers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerStatsJDBCDataAccessServiceTest extends AbstractTestcontainers {
+
+    // ages no other test uses, so counts in this bucket are ours alone
+    private static final int AGE = 905;
+    private static final int AGE_BUCKET = 900;
+
+    private final JdbcTemplate jdbcTemplate = getJdbcTemplate();
+    private CustomerStatsJDBCDataAccessService underTest;
+    private CustomerJDBCDataAccessService customerDataAccessService;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerStatsJDBCDataAccessService(jdbcTemplate);
+        customerDataAccessService = new CustomerJDBCDataAccessService(
+                jdbcTemplate,
+                new CustomerRowMapper(),
+                new CustomerDTORowMapper()
+        );
+    }
+
+    @Test
+    void triggersKeepStatsExact() {
+        // Given
+        long before = bucketCount(Gender.FEMALE, AGE_BUCKET);
+        long beforeNext = bucketCount(Gender.FEMALE, AGE_BUCKET + 10);
+
+        // When
+        int[] inserted = customerDataAccessService.insertCustomers(List.of(
+                customer(AGE), customer(AGE), customer(AGE)
+        ));
+        Integer id = customerDataAccessService.selectAllCustomers()
+                .stream()
+                .filter(c -> c.getAge() == AGE)
+                .map(Customer::getId)
+                .findFirst()
+                .orElseThrow();
+        Customer moved = new Customer();
+        moved.setId(id);
+        moved.setAge(AGE + 10);
+        customerDataAccessService.updateCustomer(moved);
+
+        // Then
+        assertThat(inserted).containsExactly(1, 1, 1);
+        assertThat(bucketCount(Gender.FEMALE, AGE_BUCKET)).isEqualTo(before + 2);
+        assertThat(bucketCount(Gender.FEMALE, AGE_BUCKET + 10)).isEqualTo(beforeNext + 1);
+
+        customerDataAccessService.deleteCustomerById(id);
+        assertThat(bucketCount(Gender.FEMALE, AGE_BUCKET + 10)).isEqualTo(beforeNext);
+        assertThat(underTest.customerStatsDrifted()).isFalse();
+    }
+
+    @Test
+    void sumsCountsOverShards() {
+        // Given
+        long before = bucketCount(Gender.FEMALE, AGE_BUCKET);
+        customerDataAccessService.insertCustomer(customer(AGE));
+
+        // When
+        // one writer counted a customer in, another counted it out
+        jdbcTemplate.update("""
+                INSERT INTO customer_stats(gender, age_bucket, shard, count)
+                VALUES ('FEMALE', ?, 100, 5), ('FEMALE', ?, 101, -5)
+                """, AGE_BUCKET, AGE_BUCKET);
+
+        // Then
+        assertThat(bucketCount(Gender.FEMALE, AGE_BUCKET)).isEqualTo(before + 1);
+        assertThat(underTest.customerStatsDrifted()).isFalse();
+    }
+
+    @Test
+    void rebuildRepairsDrift() {
+        // Given
+        customerDataAccessService.insertCustomer(customer(AGE));
+        jdbcTemplate.update("UPDATE customer_stats SET count = count + 100");
+
+        // When
+        boolean drifted = underTest.customerStatsDrifted();
+        new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()))
+                .executeWithoutResult(status -> underTest.rebuildCustomerStats());
+
+        // Then
+        assertThat(drifted).isTrue();
+        assertThat(underTest.customerStatsDrifted()).isFalse();
+    }
+
+    private long bucketCount(Gender gender, int ageBucket) {
+        return underTest.selectCustomerStats()
+                .stream()
+                .filter(row -> row.gender() == gender && row.ageBucket() == ageBucket)
+                .mapToLong(CustomerStatsJDBCDataAccessService.Row::count)
+                .sum();
+    }
+
+    private static Customer customer(int age) {
+        return new Customer(
+                FAKER.name().fullName(),
+                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                "password",
+                age,
+                Gender.FEMALE
+        );
+    }
+}
@@ -0,0 +1,61 @@
+package com.granados.customer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerStatsServiceTest {
+
+    @Mock
+    private CustomerStatsJDBCDataAccessService customerStatsDataAccessService;
+    private CustomerStatsService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerStatsService(customerStatsDataAccessService);
+    }
+
+    @Test
+    void getCustomerStats() {
+        // Given
+        when(customerStatsDataAccessService.selectCustomerStats()).thenReturn(List.of(
+                new CustomerStatsJDBCDataAccessService.Row(Gender.FEMALE, 20, 3),
+                new CustomerStatsJDBCDataAccessService.Row(Gender.MALE, 20, 2),
+                new CustomerStatsJDBCDataAccessService.Row(Gender.MALE, 30, 4)
+        ));
+
+        // When
+        CustomerStats actual = underTest.getCustomerStats();
+
+        // Then
+        assertThat(actual.total()).isEqualTo(9);
+        assertThat(actual.genders()).isEqualTo(Map.of(Gender.FEMALE, 3L, Gender.MALE, 6L));
+        assertThat(actual.ageBuckets()).containsExactly(
+                new CustomerStats.AgeBucket(20, 29, 5, Map.of(Gender.FEMALE, 3L, Gender.MALE, 2L)),
+                new CustomerStats.AgeBucket(30, 39, 4, Map.of(Gender.MALE, 4L))
+        );
+    }
+
+    @Test
+    void reconcileOnlyRebuildsWhenDrifted() {
+        // Given
+        when(customerStatsDataAccessService.customerStatsDrifted()).thenReturn(false, true);
+
+        // When
+        // Then
+        assertThat(underTest.reconcileCustomerStats()).isFalse();
+        verify(customerStatsDataAccessService, never()).rebuildCustomerStats();
+
+        assertThat(underTest.reconcileCustomerStats()).isTrue();
+        verify(customerStatsDataAccessService).rebuildCustomerStats();
+    }
+}
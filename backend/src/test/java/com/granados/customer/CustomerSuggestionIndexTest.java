@@ -0,0 +1,110 @@
+package com.granados.customer;
+
+import com.granados.exception.RequestValidationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerSuggestionIndexTest {
+
+    @Mock
+    private CustomerDao customerDao;
+    private CustomerSuggestionIndex underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerSuggestionIndex(customerDao);
+    }
+
+    @Test
+    void rebuildIndexesNamesWordsAndEmails() {
+        // Given
+        when(customerDao.selectCustomerDTOsAfter(0, 10_000)).thenReturn(List.of(
+                new CustomerDTO(1, "José Granados", "jose@gmail.com", Gender.MALE, 28),
+                new CustomerDTO(2, "Mateo Granados", "mateo@gmail.com", Gender.MALE, 12)
+        ));
+
+        // When
+        underTest.rebuild();
+
+        // Then
+        assertThat(underTest.suggest("JOSE", 10))
+                .containsExactly(new CustomerSuggestion(1, "José Granados", "jose@gmail.com"));
+        assertThat(underTest.suggest("gra", 10))
+                .extracting(CustomerSuggestion::id)
+                .containsExactly(1, 2);
+        assertThat(underTest.suggest("mateo@", 10))
+                .extracting(CustomerSuggestion::id)
+                .containsExactly(2);
+        assertThat(underTest.suggest("gra", 1)).hasSize(1);
+    }
+
+    @Test
+    void changeEventsKeepIndexCurrent() {
+        // Given
+        underTest.index(new CustomerDTO(1, "German", "german@gmail.com", Gender.MALE, 28));
+        underTest.index(new CustomerDTO(2, "Mateo", "mateo@gmail.com", Gender.MALE, 12));
+        when(customerDao.selectCustomerDTOById(1)).thenReturn(Optional.of(
+                new CustomerDTO(1, "Ana", "ana@gmail.com", Gender.FEMALE, 28)
+        ));
+
+        // When
+        underTest.onCustomerChange(CustomerChangeEvent.updated(1));
+        underTest.onCustomerChange(CustomerChangeEvent.deleted(List.of(2)));
+
+        // Then
+        assertThat(underTest.suggest("german", 10)).isEmpty();
+        assertThat(underTest.suggest("mateo", 10)).isEmpty();
+        assertThat(underTest.suggest("ana", 10))
+                .extracting(CustomerSuggestion::id)
+                .containsExactly(1);
+    }
+
+    @Test
+    void rebuildKeepsServingAndCatchesUpWithChangesMadeMeanwhile() {
+        // Given
+        underTest.index(new CustomerDTO(1, "German", "german@gmail.com", Gender.MALE, 28));
+        when(customerDao.selectCustomerDTOById(3)).thenReturn(Optional.of(
+                new CustomerDTO(3, "Lucia", "lucia@gmail.com", Gender.FEMALE, 30)
+        ));
+        when(customerDao.selectCustomerDTOsAfter(0, 10_000)).thenAnswer(invocation -> {
+            assertThat(underTest.suggest("german", 10)).hasSize(1);
+            // committed after the batch was read, with a lower id than the last indexed
+            underTest.onCustomerChange(CustomerChangeEvent.created(3));
+            return List.of(
+                    new CustomerDTO(1, "German", "german@gmail.com", Gender.MALE, 28),
+                    new CustomerDTO(5, "Mateo", "mateo@gmail.com", Gender.MALE, 12)
+            );
+        });
+
+        // When
+        underTest.rebuild();
+
+        // Then
+        assertThat(underTest.suggest("lucia", 10))
+                .extracting(CustomerSuggestion::id)
+                .containsExactly(3);
+        assertThat(underTest.suggest("mateo", 10))
+                .extracting(CustomerSuggestion::id)
+                .containsExactly(5);
+    }
+
+    @Test
+    void willThrowWhenPrefixIsBlank() {
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.suggest(" ", 10))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("prefix must not be blank");
+    }
+}
@@ -0,0 +1,177 @@
+package com.granados.customer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CustomerUserDetailsServiceTest {
+
+    private static final String EMAIL = "german@gmail.com";
+
+    private final CustomerDao customerDao = mock(CustomerDao.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CustomerUserDetailsCache cache;
+    private CustomerUserDetailsService underTest;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CustomerUserDetailsCache(meterRegistry, 100, Duration.ofMinutes(5), Duration.ofSeconds(5));
+        underTest = new CustomerUserDetailsService(customerDao, cache);
+        when(customerDao.selectUserByEmail(EMAIL)).thenReturn(Optional.of(
+                new Customer(1, "German", EMAIL, "password", 28, Gender.MALE)));
+    }
+
+    @Test
+    void servesRepeatedLookupsFromCache() {
+        // When
+        UserDetails first = underTest.loadUserByUsername(EMAIL);
+        UserDetails second = underTest.loadUserByUsername(EMAIL);
+
+        // Then
+        assertThat(second.getUsername()).isEqualTo(first.getUsername());
+        assertThat(second).isNotSameAs(first);
+        verify(customerDao, times(1)).selectUserByEmail(EMAIL);
+        assertThat(meterRegistry.get("cache.gets")
+                .tag("cache", CustomerUserDetailsCache.CACHE_NAME)
+                .tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void cachedCustomerKeepsItsVersion() {
+        // Given
+        Customer customer = new Customer(1, "German", EMAIL, "password", 28, Gender.MALE);
+        customer.setVersion(4);
+        when(customerDao.selectUserByEmail(EMAIL)).thenReturn(Optional.of(customer));
+        underTest.loadUserByUsername(EMAIL);
+
+        // When
+        UserDetails cached = underTest.loadUserByUsername(EMAIL);
+
+        // Then
+        assertThat(((Customer) cached).getVersion()).isEqualTo(4);
+    }
+
+    @Test
+    void reloadsCustomerAfterUpdateOrDelete() {
+        // Given
+        underTest.loadUserByUsername(EMAIL);
+
+        // When
+        cache.onCustomerChange(CustomerChangeEvent.updated(1));
+        underTest.loadUserByUsername(EMAIL);
+        cache.onCustomerChange(CustomerChangeEvent.deleted(List.of(1)));
+        underTest.loadUserByUsername(EMAIL);
+
+        // Then
+        verify(customerDao, times(3)).selectUserByEmail(EMAIL);
+    }
+
+    @Test
+    void updateDropsCustomerUnderEveryEmailItWasCachedBy() {
+        // Given
+        String newEmail = "german.granados@gmail.com";
+        when(customerDao.selectUserByEmail(newEmail)).thenReturn(Optional.of(
+                new Customer(1, "German", newEmail, "password", 28, Gender.MALE)));
+        underTest.loadUserByUsername(EMAIL);
+        // the email changed and the new one was looked up before the event arrived
+        underTest.loadUserByUsername(newEmail);
+
+        // When
+        cache.onCustomerChange(CustomerChangeEvent.updated(1));
+
+        // Then
+        assertThat(cache.get(EMAIL)).isEmpty();
+        assertThat(cache.get(newEmail)).isEmpty();
+    }
+
+    @Test
+    void resetDropsEveryCustomer() {
+        // Given
+        underTest.loadUserByUsername(EMAIL);
+
+        // When
+        cache.onCustomerChange(CustomerChangeEvent.reset());
+        underTest.loadUserByUsername(EMAIL);
+
+        // Then
+        verify(customerDao, times(2)).selectUserByEmail(EMAIL);
+    }
+
+    @Test
+    void doesNotCacheLookupThatRacedWithInvalidation() {
+        // Given
+        long generation = cache.generation();
+        Customer stale = new Customer(1, "German", EMAIL, "password", 28, Gender.MALE);
+        cache.onCustomerChange(CustomerChangeEvent.updated(1));
+
+        // When
+        cache.put(EMAIL, stale, generation);
+
+        // Then
+        assertThat(cache.get(EMAIL)).isEmpty();
+    }
+
+    @Test
+    void doesNotCacheLookupWithinReplicaLagWindowAfterInvalidation() {
+        // Given
+        underTest.loadUserByUsername(EMAIL);
+
+        // When
+        cache.onCustomerChange(CustomerChangeEvent.updated(1));
+        // may have read a replica still holding the row from before the change
+        underTest.loadUserByUsername(EMAIL);
+
+        // Then
+        assertThat(cache.get(EMAIL)).isEmpty();
+
+        // When
+        cache.onCustomerChange(CustomerChangeEvent.reset());
+        when(customerDao.selectUserByEmail("ana@gmail.com")).thenReturn(Optional.of(
+                new Customer(2, "Ana", "ana@gmail.com", "password", 30, Gender.FEMALE)));
+        underTest.loadUserByUsername("ana@gmail.com");
+
+        // Then
+        assertThat(cache.get("ana@gmail.com")).isEmpty();
+    }
+
+    @Test
+    void cachesLookupOnceReplicaLagWindowIsOver() throws InterruptedException {
+        // Given
+        cache = new CustomerUserDetailsCache(meterRegistry, 100, Duration.ofMinutes(5), Duration.ofMillis(50));
+        underTest = new CustomerUserDetailsService(customerDao, cache);
+        cache.onCustomerChange(CustomerChangeEvent.updated(1));
+
+        // When
+        Thread.sleep(100);
+        underTest.loadUserByUsername(EMAIL);
+
+        // Then
+        assertThat(cache.get(EMAIL)).isPresent();
+    }
+
+    @Test
+    void willThrowWhenCustomerDoesNotExist() {
+        // Given
+        when(customerDao.selectUserByEmail("nobody@gmail.com")).thenReturn(Optional.empty());
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.loadUserByUsername("nobody@gmail.com"))
+                .isInstanceOf(UsernameNotFoundException.class);
+    }
+}
@@ -0,0 +1,70 @@
+package com.granados.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConnectionPoolMonitorTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HikariDataSource pool = mock(HikariDataSource.class);
+    private final HikariPoolMXBean mxBean = mock(HikariPoolMXBean.class);
+    private ConnectionPoolMonitor underTest;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(pool.getPoolName()).thenReturn("primary");
+        when(pool.getHikariPoolMXBean()).thenReturn(mxBean);
+        when(pool.getMaximumPoolSize()).thenReturn(4);
+        when(pool.getLeakDetectionThreshold()).thenReturn(60_000L);
+        ObjectProvider<DataSource> dataSources = mock(ObjectProvider.class);
+        when(dataSources.orderedStream()).thenReturn(Stream.of(pool));
+
+        underTest = new ConnectionPoolMonitor(
+                dataSources, meterRegistry, Duration.ofSeconds(1), Duration.ofMinutes(5), 8);
+    }
+
+    @Test
+    void reportsPoolStateTimingsAndAdvice() {
+        // Given
+        Timer usage = Timer.builder("hikaricp.connections.usage").tag("pool", "primary").register(meterRegistry);
+        usage.record(Duration.ofMillis(40));
+        meterRegistry.counter("hikaricp.connections.timeout", "pool", "primary").increment();
+        when(mxBean.getActiveConnections()).thenReturn(4);
+        when(mxBean.getIdleConnections()).thenReturn(0);
+        when(mxBean.getThreadsAwaitingConnection()).thenReturn(3);
+        when(mxBean.getTotalConnections()).thenReturn(4);
+
+        underTest.sample();
+        underTest.sample();
+
+        // When
+        ConnectionPoolStats actual = underTest.getPoolStats().get(0);
+
+        // Then
+        assertThat(actual.pool()).isEqualTo("primary");
+        assertThat(actual.active()).isEqualTo(4);
+        assertThat(actual.pending()).isEqualTo(3);
+        assertThat(actual.timeouts()).isEqualTo(1);
+        assertThat(actual.usage().count()).isEqualTo(1);
+        assertThat(actual.leakDetectionThresholdMillis()).isEqualTo(60_000L);
+        assertThat(actual.advice().peakDemand()).isEqualTo(7);
+        assertThat(actual.advice().recommendedSize()).isEqualTo(9);
+        assertThat(meterRegistry.get("hikaricp.connections.recommended").tag("pool", "primary").gauge().value())
+                .isEqualTo(9.0);
+    }
+}
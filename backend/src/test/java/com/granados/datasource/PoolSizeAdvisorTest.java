@@ -0,0 +1,74 @@
+package com.granados.datasource;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PoolSizeAdvisorTest {
+
+    private static final Duration MINUTE = Duration.ofMinutes(1);
+
+    @Test
+    void keepsSizeUntilThereAreEnoughSamples() {
+        // When
+        PoolSizeAdvice actual = PoolSizeAdvisor.advise(
+                new PoolUsageWindow(Duration.ZERO, 1, 10, 5, 0, 0, 0), 10, 8);
+
+        // Then
+        assertThat(actual.recommendedSize()).isEqualTo(10);
+    }
+
+    @Test
+    void growsPoolWhenThreadsWaitForConnections() {
+        // Given
+        // peak of 8 active plus 4 waiting
+        PoolUsageWindow window = new PoolUsageWindow(MINUTE, 60, 8, 4, 6_000, 120_000, 0);
+
+        // When
+        PoolSizeAdvice actual = PoolSizeAdvisor.advise(window, 8, 8);
+
+        // Then
+        assertThat(actual.peakDemand()).isEqualTo(12);
+        assertThat(actual.averageInUse()).isEqualTo(2.0);
+        assertThat(actual.recommendedSize()).isEqualTo(15);
+    }
+
+    @Test
+    void treatsTimeoutsAsDemandAboveThePool() {
+        // Given
+        PoolUsageWindow window = new PoolUsageWindow(MINUTE, 60, 3, 0, 100, 1_000, 2);
+
+        // When
+        PoolSizeAdvice actual = PoolSizeAdvisor.advise(window, 5, 8);
+
+        // Then
+        assertThat(actual.peakDemand()).isEqualTo(6);
+        assertThat(actual.recommendedSize()).isGreaterThan(5);
+    }
+
+    @Test
+    void capsRecommendationAtDatabaseCores() {
+        // Given
+        PoolUsageWindow window = new PoolUsageWindow(MINUTE, 60, 20, 30, 100_000, 600_000, 0);
+
+        // When
+        PoolSizeAdvice actual = PoolSizeAdvisor.advise(window, 20, 4);
+
+        // Then
+        assertThat(actual.recommendedSize()).isEqualTo(9);
+    }
+
+    @Test
+    void shrinksIdlePool() {
+        // Given
+        PoolUsageWindow window = new PoolUsageWindow(MINUTE, 60, 2, 0, 600, 6_000, 0);
+
+        // When
+        PoolSizeAdvice actual = PoolSizeAdvisor.advise(window, 10, 8);
+
+        // Then
+        assertThat(actual.recommendedSize()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,70 @@
+package com.granados.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static com.granados.datasource.ReplicaRoutingDataSource.Route.PRIMARY;
+import static com.granados.datasource.ReplicaRoutingDataSource.Route.REPLICA;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final ReplicaRoutingDataSource underTest = new ReplicaRoutingDataSource(
+            mock(DataSource.class), mock(DataSource.class)
+    );
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        ReadYourWritesTracker.unpin();
+    }
+
+    @Test
+    void routesReadOnlyTransactionsToReplica() {
+        // Given
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // When
+        // Then
+        assertThat(underTest.determineCurrentLookupKey()).isEqualTo(REPLICA);
+    }
+
+    @Test
+    void routesWritesToPrimary() {
+        // When
+        // Then
+        assertThat(underTest.determineCurrentLookupKey()).isEqualTo(PRIMARY);
+    }
+
+    @Test
+    void routesPinnedReadsToPrimary() {
+        // Given
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        ReadYourWritesTracker.pinToPrimary();
+
+        // When
+        // Then
+        assertThat(underTest.determineCurrentLookupKey()).isEqualTo(PRIMARY);
+    }
+
+    @Test
+    void readYourWritesWindowExpires() throws InterruptedException {
+        // Given
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker(Duration.ofMillis(50));
+
+        // When
+        tracker.recordWrite("german@gmail.com");
+
+        // Then
+        assertThat(tracker.wroteRecently("german@gmail.com")).isTrue();
+        assertThat(tracker.wroteRecently("mateo@gmail.com")).isFalse();
+
+        Thread.sleep(60);
+        assertThat(tracker.wroteRecently("german@gmail.com")).isFalse();
+    }
+}
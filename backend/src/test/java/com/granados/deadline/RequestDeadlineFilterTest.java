@@ -0,0 +1,94 @@
+package com.granados.deadline;
+
+import com.granados.exception.DeadlineExceededException;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class RequestDeadlineFilterTest {
+
+    private final HandlerExceptionResolver handlerExceptionResolver = mock(HandlerExceptionResolver.class);
+    private final RequestDeadlineFilter underTest = new RequestDeadlineFilter(
+            new RequestDeadlineProperties(
+                    Duration.ofSeconds(10),
+                    Duration.ofSeconds(60),
+                    Map.of("/api/v1/customers/batch", Duration.ofMinutes(1)),
+                    List.of("/api/v1/customers/import")
+            ),
+            handlerExceptionResolver
+    );
+
+    @Test
+    void usesEndpointTimeoutOrDefault() {
+        // When
+        // Then
+        assertThat(underTest.timeoutOf(new MockHttpServletRequest("POST", "/api/v1/customers/batch")))
+                .isEqualTo(Duration.ofMinutes(1));
+        assertThat(underTest.timeoutOf(new MockHttpServletRequest("GET", "/api/v1/customers")))
+                .isEqualTo(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void headerOverridesTimeoutUpToMaximum() {
+        // Given
+        MockHttpServletRequest shorter = new MockHttpServletRequest("GET", "/api/v1/customers");
+        shorter.addHeader(RequestDeadlineFilter.TIMEOUT_HEADER, "1500");
+        MockHttpServletRequest longer = new MockHttpServletRequest("GET", "/api/v1/customers");
+        longer.addHeader(RequestDeadlineFilter.TIMEOUT_HEADER, "600000");
+        MockHttpServletRequest invalid = new MockHttpServletRequest("GET", "/api/v1/customers");
+        invalid.addHeader(RequestDeadlineFilter.TIMEOUT_HEADER, "soon");
+
+        // When
+        // Then
+        assertThat(underTest.timeoutOf(shorter)).isEqualTo(Duration.ofMillis(1500));
+        assertThat(underTest.timeoutOf(longer)).isEqualTo(Duration.ofSeconds(60));
+        assertThat(underTest.timeoutOf(invalid)).isEqualTo(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void setsDeadlineForTheChainOnlyAndResolvesDeadlineFailures() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/customers");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<Duration> remaining = new AtomicReference<>();
+        DeadlineExceededException exceeded = new DeadlineExceededException("request deadline exceeded");
+        FilterChain chain = (req, res) -> {
+            remaining.set(RequestDeadline.remaining());
+            throw exceeded;
+        };
+
+        // When
+        underTest.doFilter(request, response, chain);
+
+        // Then
+        assertThat(remaining.get()).isPositive().isLessThanOrEqualTo(Duration.ofSeconds(10));
+        assertThat(RequestDeadline.remaining()).isNull();
+        verify(handlerExceptionResolver).resolveException(request, response, null, exceeded);
+    }
+
+    @Test
+    void exemptEndpointsRunWithoutDeadline() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/customers/import");
+        request.addHeader(RequestDeadlineFilter.TIMEOUT_HEADER, "1500");
+        AtomicReference<Duration> remaining = new AtomicReference<>(Duration.ZERO);
+        FilterChain chain = (req, res) -> remaining.set(RequestDeadline.remaining());
+
+        // When
+        underTest.doFilter(request, new MockHttpServletResponse(), chain);
+
+        // Then
+        assertThat(remaining.get()).isNull();
+    }
+}
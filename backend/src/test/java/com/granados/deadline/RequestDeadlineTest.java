@@ -0,0 +1,75 @@
+package com.granados.deadline;
+
+import com.granados.exception.DeadlineExceededException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class RequestDeadlineTest {
+
+    private final Statement statement = mock(Statement.class);
+
+    @AfterEach
+    void tearDown() {
+        RequestDeadline.clear();
+    }
+
+    @Test
+    void leavesStatementsAloneWithoutDeadline() throws Exception {
+        // When
+        RequestDeadline.applyTo(statement);
+
+        // Then
+        assertThat(RequestDeadline.remaining()).isNull();
+        verifyNoInteractions(statement);
+    }
+
+    @Test
+    void setsQueryTimeoutFromRemainingBudgetRoundedUp() throws Exception {
+        // Given
+        RequestDeadline.start(Duration.ofMillis(2500));
+
+        // When
+        RequestDeadline.applyTo(statement);
+
+        // Then
+        verify(statement).setQueryTimeout(3);
+    }
+
+    @Test
+    void keepsShorterQueryTimeout() throws Exception {
+        // Given
+        RequestDeadline.start(Duration.ofSeconds(30));
+        when(statement.getQueryTimeout()).thenReturn(5);
+
+        // When
+        RequestDeadline.applyTo(statement);
+
+        // Then
+        verify(statement, never()).setQueryTimeout(30);
+    }
+
+    @Test
+    void failsFastOnceDeadlinePassed() {
+        // Given
+        RequestDeadline.start(Duration.ofMillis(-1));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> RequestDeadline.applyTo(statement))
+                .isInstanceOf(DeadlineExceededException.class);
+        assertThatThrownBy(RequestDeadline::check)
+                .isInstanceOf(DeadlineExceededException.class);
+        verifyNoInteractions(statement);
+    }
+}
@@ -0,0 +1,57 @@
+package com.granados.deadline;
+
+import com.granados.AbstractTestcontainers;
+import com.granados.exception.ApiError;
+import com.granados.exception.DefaultExceptionHandler;
+import com.granados.jdbc.StatementMetrics;
+import com.granados.jdbc.TimedDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StatementTimeoutTranslatorTest extends AbstractTestcontainers {
+
+    private static final DataSource dataSource = getJdbcTemplate().getDataSource();
+
+    @AfterEach
+    void tearDown() {
+        RequestDeadline.clear();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void statementOutlivingTheDeadlineIsAnsweredWithGatewayTimeout() {
+        // Given
+        ObjectProvider<StatementMetrics> metrics = mock(ObjectProvider.class);
+        when(metrics.getObject()).thenReturn(new StatementMetrics(Duration.ofSeconds(10), 10));
+        TimedDataSource timedDataSource = new TimedDataSource(dataSource, metrics);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(timedDataSource);
+        jdbcTemplate.setExceptionTranslator(new StatementTimeoutTranslator(timedDataSource));
+        RequestDeadline.start(Duration.ofMillis(500));
+
+        // When
+        QueryTimeoutException thrown = catchThrowableOfType(
+                () -> jdbcTemplate.queryForObject("SELECT pg_sleep(5)", String.class),
+                QueryTimeoutException.class);
+        ResponseEntity<ApiError> response = new DefaultExceptionHandler()
+                .handleException(thrown, new MockHttpServletRequest("GET", "/api/v1/customers"));
+
+        // Then
+        assertThat(thrown).isNotNull();
+        assertThat(thrown.getMessage()).doesNotContain("pg_sleep");
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+    }
+}
@@ -0,0 +1,64 @@
+package com.granados.jdbc;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatementMetricsTest {
+
+    private final StatementMetrics underTest = new StatementMetrics(Duration.ofMillis(200), 2);
+
+    @Test
+    void recordsLatencyHistogramPerTemplate() {
+        // Given
+        long oneMilli = 1_000_000;
+
+        // When
+        underTest.record("SELECT id\n  FROM customer WHERE id = ?", 1, 1, oneMilli);
+        underTest.record("SELECT id FROM customer WHERE id = ?", 1, 1, 3 * oneMilli);
+        underTest.record("SELECT id FROM customer WHERE id = ?", 1, 0, 300 * oneMilli);
+
+        // Then
+        List<StatementStats> actual = underTest.snapshot();
+        assertThat(actual).hasSize(1);
+        StatementStats stats = actual.get(0);
+        assertThat(stats.sql()).isEqualTo("SELECT id FROM customer WHERE id = ?");
+        assertThat(stats.count()).isEqualTo(3);
+        assertThat(stats.rows()).isEqualTo(2);
+        assertThat(stats.maxMillis()).isEqualTo(300.0);
+        assertThat(stats.p50Millis()).isEqualTo(5);
+        assertThat(stats.p99Millis()).isEqualTo(500);
+        assertThat(stats.histogram())
+                .extracting(StatementStats.Bucket::count)
+                .containsExactly(1L, 0L, 1L, 0L, 0L, 0L, 0L, 0L, 1L, 0L, 0L, 0L, 0L, 0L);
+    }
+
+    @Test
+    void foldsTemplatesAboveTheLimitIntoOneEntry() {
+        // When
+        underTest.record("SELECT 1", 0, 1, 1000);
+        underTest.record("SELECT 2", 0, 1, 1000);
+        underTest.record("SELECT 3", 0, 1, 1000);
+        underTest.record("SELECT 4", 0, 1, 1000);
+
+        // Then
+        assertThat(underTest.snapshot())
+                .extracting(StatementStats::sql)
+                .containsExactlyInAnyOrder("SELECT 1", "SELECT 2", StatementMetrics.OTHER_STATEMENTS);
+    }
+
+    @Test
+    void resetDropsAllTemplates() {
+        // Given
+        underTest.record("SELECT 1", 0, 1, 1000);
+
+        // When
+        underTest.reset();
+
+        // Then
+        assertThat(underTest.snapshot()).isEmpty();
+    }
+}
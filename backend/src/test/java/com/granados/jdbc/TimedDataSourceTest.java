@@ -0,0 +1,106 @@
+package com.granados.jdbc;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.core.BaseConnection;
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TimedDataSourceTest {
+
+    private final StatementMetrics statementMetrics = new StatementMetrics(Duration.ofSeconds(1), 100);
+    private final DataSource dataSource = mock(DataSource.class);
+    private final Connection connection = mock(Connection.class);
+    private TimedDataSource underTest;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        ObjectProvider<StatementMetrics> provider = mock(ObjectProvider.class);
+        when(provider.getObject()).thenReturn(statementMetrics);
+        when(dataSource.getConnection()).thenReturn(connection);
+        underTest = new TimedDataSource(dataSource, provider);
+    }
+
+    @Test
+    void recordsUpdatesWithBindsAndRows() throws Exception {
+        // Given
+        String sql = "UPDATE customer SET name = ? WHERE id = ?";
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(sql)).thenReturn(statement);
+        when(statement.executeUpdate()).thenReturn(1);
+
+        // When
+        try (Connection timed = underTest.getConnection();
+             PreparedStatement prepared = timed.prepareStatement(sql)) {
+            prepared.setFetchSize(10);
+            prepared.setString(1, "German");
+            prepared.setInt(2, 1);
+            prepared.executeUpdate();
+        }
+
+        // Then
+        assertThat(statementMetrics.snapshot())
+                .singleElement()
+                .satisfies(stats -> {
+                    assertThat(stats.sql()).isEqualTo(sql);
+                    assertThat(stats.count()).isEqualTo(1);
+                    assertThat(stats.rows()).isEqualTo(1);
+                });
+        verify(statement).setString(1, "German");
+    }
+
+    @Test
+    void recordsQueriesWithRowsReadOnceTheResultSetIsClosed() throws Exception {
+        // Given
+        String sql = "SELECT id FROM customer";
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(sql)).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, false);
+
+        // When
+        try (Connection timed = underTest.getConnection();
+             Statement created = timed.createStatement()) {
+            ResultSet rows = created.executeQuery(sql);
+            while (rows.next()) {
+                rows.getInt(1);
+            }
+            assertThat(statementMetrics.snapshot()).isEmpty();
+            rows.close();
+        }
+
+        // Then
+        assertThat(statementMetrics.snapshot())
+                .singleElement()
+                .satisfies(stats -> {
+                    assertThat(stats.count()).isEqualTo(1);
+                    assertThat(stats.rows()).isEqualTo(2);
+                });
+    }
+
+    @Test
+    void unwrapReachesTheDriverConnection() throws Exception {
+        // Given
+        BaseConnection baseConnection = mock(BaseConnection.class);
+        when(connection.unwrap(BaseConnection.class)).thenReturn(baseConnection);
+
+        // When
+        BaseConnection actual = underTest.getConnection().unwrap(BaseConnection.class);
+
+        // Then
+        assertThat(actual).isSameAs(baseConnection);
+    }
+}
@@ -7,7 +7,9 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Mono;
 
@@ -17,6 +19,9 @@ import java.util.UUID;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
 import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.HttpHeaders.CACHE_CONTROL;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
+import static org.springframework.http.HttpHeaders.LOCATION;
 
 @SpringBootTest(webEnvironment = RANDOM_PORT)
 public class CustomerIntegrationTest {
@@ -97,6 +102,43 @@ public class CustomerIntegrationTest {
                 .isEqualTo(expectedCustomer);
     }
 
+    @Test
+    void canNotRegisterCustomerWithTakenEmail() {
+        // create a registration request
+        Faker faker = new Faker();
+        Name fakerName = faker.name();
+        String name = fakerName.fullName();
+        String email = fakerName.lastName() + "-" + UUID.randomUUID() + "@gmail.com";
+        Integer age = faker.random().nextInt(1, 100);
+        Gender gender = faker.options().option(Gender.FEMALE, Gender.MALE);
+
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(
+                name, email, "password", age, gender
+        );
+
+        //send a post request
+        webTestClient.post()
+                .uri(CUSTOMER_PATH)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(request), CustomerRegistrationRequest.class)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .valueMatches(LOCATION, ".*" + CUSTOMER_PATH + "/\\d+$");
+
+        //send the same request again
+        webTestClient.post()
+                .uri(CUSTOMER_PATH)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(request), CustomerRegistrationRequest.class)
+                .exchange()
+                .expectStatus()
+                .isEqualTo(HttpStatus.CONFLICT);
+    }
+
     @Test
     void canDeleteCustomer() {
         // create a registration request
@@ -259,4 +301,93 @@ public class CustomerIntegrationTest {
         assertThat(updatedCustomer).isEqualTo(expected);
 
     }
+
+    @Test
+    void customerReadsAnswerIfNoneMatchWithNotModified() {
+        // register a customer
+        Faker faker = new Faker();
+        String email = faker.name().lastName() + "-" + UUID.randomUUID() + "@gmail.com";
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(
+                faker.name().fullName(), email, "password", 30, Gender.FEMALE
+        );
+        EntityExchangeResult<Void> registration = webTestClient.post()
+                .uri(CUSTOMER_PATH)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(request), CustomerRegistrationRequest.class)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(Void.class)
+                .returnResult();
+        String jwtToken = registration.getResponseHeaders().getFirst(AUTHORIZATION);
+        String location = registration.getResponseHeaders().getFirst(LOCATION);
+
+        // both the customer and the list come with an ETag
+        String customerETag = webTestClient.get()
+                .uri(location)
+                .header(AUTHORIZATION, String.format("Bearer %s", jwtToken))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader().valueEquals(CACHE_CONTROL, "no-cache")
+                .returnResult(CustomerDTO.class)
+                .getResponseHeaders()
+                .getETag();
+        String listETag = webTestClient.get()
+                .uri(CUSTOMER_PATH)
+                .header(AUTHORIZATION, String.format("Bearer %s", jwtToken))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(CustomerDTO.class)
+                .getResponseHeaders()
+                .getETag();
+        assertThat(customerETag).isNotNull();
+        assertThat(listETag).isNotNull();
+
+        // unchanged resources are not sent again
+        webTestClient.get()
+                .uri(location)
+                .header(AUTHORIZATION, String.format("Bearer %s", jwtToken))
+                .header(IF_NONE_MATCH, customerETag)
+                .exchange()
+                .expectStatus()
+                .isNotModified()
+                .expectBody().isEmpty();
+        webTestClient.get()
+                .uri(CUSTOMER_PATH)
+                .header(AUTHORIZATION, String.format("Bearer %s", jwtToken))
+                .header(IF_NONE_MATCH, listETag)
+                .exchange()
+                .expectStatus()
+                .isNotModified();
+
+        // an update changes both
+        webTestClient.put()
+                .uri(location)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerUpdateRequest("German", null, null, null)), CustomerUpdateRequest.class)
+                .header(AUTHORIZATION, String.format("Bearer %s", jwtToken))
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        webTestClient.get()
+                .uri(location)
+                .header(AUTHORIZATION, String.format("Bearer %s", jwtToken))
+                .header(IF_NONE_MATCH, customerETag)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(CustomerDTO.class)
+                .value(customer -> assertThat(customer.name()).isEqualTo("German"));
+        webTestClient.get()
+                .uri(CUSTOMER_PATH)
+                .header(AUTHORIZATION, String.format("Bearer %s", jwtToken))
+                .header(IF_NONE_MATCH, listETag)
+                .exchange()
+                .expectStatus()
+                .isOk();
+    }
 }
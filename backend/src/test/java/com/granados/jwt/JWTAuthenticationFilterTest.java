@@ -0,0 +1,143 @@
+package com.granados.jwt;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class JWTAuthenticationFilterTest {
+
+    private final JWTUtil jwtUtil = new JWTUtil(100);
+    private final UserDetailsService userDetailsService = mock(UserDetailsService.class);
+    private final TokenRevocationJDBCDataAccessService revocationDataAccessService =
+            mock(TokenRevocationJDBCDataAccessService.class);
+    private final TokenRevocationList revocationList = new TokenRevocationList(revocationDataAccessService);
+
+    @BeforeEach
+    void setUp() {
+        when(revocationDataAccessService.selectRevocationsSince(any())).thenReturn(Map.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void claimsOnlyAuthenticatesWithoutLoadingTheCustomer() throws Exception {
+        // Given
+        revocationList.refresh();
+        JWTAuthenticationFilter underTest = filter(true);
+        String token = jwtUtil.issueToken("alex@gmail.com", 7, 0, List.of("ROLE_USER"));
+
+        // When
+        underTest.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication.getPrincipal()).isEqualTo(new JWTPrincipal(7, "alex@gmail.com"));
+        assertThat(authentication.getName()).isEqualTo("alex@gmail.com");
+        assertThat(authentication.getAuthorities())
+                .extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_USER");
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void claimsOnlyRejectsRevokedTokens() throws Exception {
+        // Given
+        revocationList.refresh();
+        JWTAuthenticationFilter underTest = filter(true);
+        String token = jwtUtil.issueToken("alex@gmail.com", 7, 0, List.of("ROLE_USER"));
+        when(revocationDataAccessService.selectRevocations(List.of(7)))
+                .thenReturn(Map.of(7, new TokenRevocation(1, Instant.now().getEpochSecond())));
+        revocationList.revoke(List.of(7));
+
+        // When
+        underTest.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void claimsOnlyAcceptsTokensIssuedAfterTheRevocation() throws Exception {
+        // Given
+        revocationList.refresh();
+        JWTAuthenticationFilter underTest = filter(true);
+        when(revocationDataAccessService.selectRevocations(List.of(7)))
+                .thenReturn(Map.of(7, new TokenRevocation(1, Instant.now().getEpochSecond())));
+        revocationList.revoke(List.of(7));
+        // issued within the same second, against the updated customer
+        String token = jwtUtil.issueToken("alex@gmail.com", 7, 1, List.of("ROLE_USER"));
+
+        // When
+        underTest.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getPrincipal())
+                .isEqualTo(new JWTPrincipal(7, "alex@gmail.com"));
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void loadsTheCustomerForTokensWithoutCustomerId() throws Exception {
+        // Given
+        String token = jwtUtil.issueToken("alex@gmail.com", "ROLE_USER");
+        when(userDetailsService.loadUserByUsername("alex@gmail.com"))
+                .thenReturn(User.withUsername("alex@gmail.com").password("password").roles("USER").build());
+
+        // When
+        filter(true).doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        verify(userDetailsService).loadUserByUsername("alex@gmail.com");
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getName())
+                .isEqualTo("alex@gmail.com");
+    }
+
+    @Test
+    void loadsTheCustomerUntilRevocationsAreLoaded() throws Exception {
+        // Given
+        String token = jwtUtil.issueToken("alex@gmail.com", 7, 0, List.of("ROLE_USER"));
+        when(userDetailsService.loadUserByUsername("alex@gmail.com"))
+                .thenReturn(User.withUsername("alex@gmail.com").password("password").roles("USER").build());
+
+        // When
+        filter(true).doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        verify(userDetailsService).loadUserByUsername("alex@gmail.com");
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getPrincipal())
+                .isNotInstanceOf(JWTPrincipal.class);
+    }
+
+    private JWTAuthenticationFilter filter(boolean claimsOnly) {
+        return new JWTAuthenticationFilter(jwtUtil, userDetailsService, revocationList, claimsOnly);
+    }
+
+    private static MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/customers");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
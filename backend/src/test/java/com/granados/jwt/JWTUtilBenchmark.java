@@ -0,0 +1,88 @@
+package com.granados.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token checks done by the authentication filter for one request, the way
+ * {@link JWTUtil} used to do them against how it does them now. Not a test,
+ * run {@link #main} on the test classpath after {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JWTUtilBenchmark {
+
+    private static final String SECRET_KEY =
+            "foobar_123456789_foobar_123456789_foobar_123456789";
+    private static final String USERNAME = "alex@gmail.com";
+
+    private JWTUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JWTUtil(10_000);
+        token = jwtUtil.issueToken(USERNAME, 7, 0, List.of("ROLE_USER"));
+    }
+
+    /**
+     * getSubject, then isTokenValid parsing twice more, each time building a
+     * parser and deriving the key.
+     */
+    @Benchmark
+    public boolean previous() {
+        String subject = previousClaims(token).getSubject();
+        return previousClaims(token).getSubject().equals(subject)
+                && !previousClaims(token).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public boolean singleParse() {
+        Claims claims = jwtUtil.verify(token);
+        return jwtUtil.isTokenValid(claims, claims.getSubject());
+    }
+
+    @Benchmark
+    public boolean cached() {
+        Claims claims = jwtUtil.getVerifiedClaims(token);
+        return jwtUtil.isTokenValid(claims, claims.getSubject());
+    }
+
+    private static Claims previousClaims(String token) {
+        return Jwts
+                .parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET_KEY.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JWTUtilBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
@@ -0,0 +1,67 @@
+package com.granados.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JWTUtilTest {
+
+    private final JWTUtil underTest = new JWTUtil(100);
+
+    @Test
+    void verifiesTokenOnceAndReusesItsClaims() {
+        // Given
+        String token = underTest.issueToken("alex@gmail.com", 7, 3, List.of("ROLE_USER"));
+
+        // When
+        Claims claims = underTest.getVerifiedClaims(token);
+
+        // Then
+        assertThat(claims.getSubject()).isEqualTo("alex@gmail.com");
+        assertThat(claims.get(JWTUtil.CUSTOMER_ID_CLAIM, Integer.class)).isEqualTo(7);
+        assertThat(claims.get(JWTUtil.CUSTOMER_VERSION_CLAIM, Long.class)).isEqualTo(3L);
+        assertThat(underTest.getVerifiedClaims(token)).isSameAs(claims);
+        assertThat(underTest.isTokenValid(token, "alex@gmail.com")).isTrue();
+        assertThat(underTest.isTokenValid(token, "jamila@gmail.com")).isFalse();
+    }
+
+    @Test
+    void rejectsTamperedTokenEvenAfterTheOriginalWasVerified() {
+        // Given
+        String token = underTest.issueToken("alex@gmail.com", "ROLE_USER");
+        underTest.getVerifiedClaims(token);
+        String tampered = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.getVerifiedClaims(tampered))
+                .isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        // Given
+        String token = Jwts.builder()
+                .setSubject("alex@gmail.com")
+                .setExpiration(Date.from(Instant.now().minusSeconds(60)))
+                .signWith(Keys.hmacShaKeyFor(
+                        "foobar_123456789_foobar_123456789_foobar_123456789".getBytes()))
+                .compact();
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.getVerifiedClaims(token))
+                .isInstanceOf(ExpiredJwtException.class);
+    }
+}
@@ -0,0 +1,77 @@
+package com.granados.jwt;
+
+import com.granados.AbstractTestcontainers;
+import com.granados.customer.Customer;
+import com.granados.customer.CustomerDTORowMapper;
+import com.granados.customer.CustomerJDBCDataAccessService;
+import com.granados.customer.CustomerRowMapper;
+import com.granados.customer.Gender;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenRevocationJDBCDataAccessServiceTest extends AbstractTestcontainers {
+
+    private static final JdbcTemplate jdbcTemplate = getJdbcTemplate();
+
+    private final TokenRevocationJDBCDataAccessService underTest =
+            new TokenRevocationJDBCDataAccessService(jdbcTemplate);
+    private final CustomerJDBCDataAccessService customerDataAccessService =
+            new CustomerJDBCDataAccessService(jdbcTemplate, new CustomerRowMapper(), new CustomerDTORowMapper());
+
+    @Test
+    void recordsUpdatedAndDeletedCustomers() {
+        // Given
+        Instant before = Instant.now().minusSeconds(5);
+        Integer created = insertCustomer();
+        Integer updated = insertCustomer();
+        Integer deleted = insertCustomer();
+
+        // When
+        Customer update = new Customer();
+        update.setId(updated);
+        update.setAge(31);
+        customerDataAccessService.updateCustomer(update);
+        customerDataAccessService.deleteCustomerById(deleted);
+
+        // Then
+        assertThat(underTest.selectRevocationsSince(before))
+                .containsKeys(updated, deleted)
+                .doesNotContainKey(created)
+                .allSatisfy((id, revocation) ->
+                        assertThat(revocation.revokedAt()).isGreaterThanOrEqualTo(before.getEpochSecond()));
+        assertThat(underTest.selectRevocations(List.of(created, updated, deleted)))
+                .containsOnlyKeys(updated, deleted)
+                .hasEntrySatisfying(updated, revocation ->
+                        assertThat(revocation.version()).isEqualTo(1))
+                .hasEntrySatisfying(deleted, revocation ->
+                        assertThat(revocation.version()).isEqualTo(Long.MAX_VALUE));
+    }
+
+    @Test
+    void deletesRevocationsBefore() {
+        // Given
+        Integer id = insertCustomer();
+        customerDataAccessService.deleteCustomerById(id);
+
+        // When
+        underTest.deleteRevocationsBefore(Instant.now().plusSeconds(5));
+
+        // Then
+        assertThat(underTest.selectRevocationsSince(Instant.EPOCH)).doesNotContainKey(id);
+    }
+
+    private Integer insertCustomer() {
+        return customerDataAccessService.insertCustomer(new Customer(
+                FAKER.name().fullName(),
+                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                "password", 30,
+                Gender.FEMALE
+        )).orElseThrow();
+    }
+}
@@ -0,0 +1,221 @@
+package com.granados.jwt;
+
+import com.granados.customer.CustomerChangeEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationListTest {
+
+    private static final long NOW = 1_700_000_000L;
+    private static final long DELETED = Long.MAX_VALUE;
+    private static final Duration LIFETIME = Duration.ofHours(10);
+    private static final Duration TICK = Duration.ofHours(1);
+
+    private final TokenRevocationJDBCDataAccessService dataAccessService =
+            mock(TokenRevocationJDBCDataAccessService.class);
+    private final TokenRevocationList underTest =
+            new TokenRevocationList(dataAccessService, LIFETIME, TICK, NOW);
+
+    @BeforeEach
+    void setUp() {
+        when(dataAccessService.selectRevocationsSince(any())).thenReturn(Map.of());
+        underTest.reload(NOW);
+    }
+
+    @Test
+    void revokesTokensIssuedAgainstEarlierVersions() {
+        // When
+        revoke(1, 3, NOW);
+        revoke(2, DELETED, NOW);
+
+        // Then
+        assertThat(underTest.isRevoked(1, 0)).isTrue();
+        assertThat(underTest.isRevoked(1, 2)).isTrue();
+        assertThat(underTest.isRevoked(1, 3)).isFalse();
+        assertThat(underTest.isRevoked(2, 3)).isTrue();
+        assertThat(underTest.isRevoked(3, 0)).isFalse();
+    }
+
+    @Test
+    void acceptsTokenIssuedInTheSameSecondRightAfterTheRevocation() {
+        // Given
+        // the customer updated their profile, which revoked the token of version 0
+        revoke(1, 1, NOW);
+
+        // When
+        // logging in again within the same second issues a token of version 1
+        boolean revoked = underTest.isRevoked(1, 1);
+
+        // Then
+        assertThat(revoked).isFalse();
+        assertThat(underTest.isRevoked(1, 0)).isTrue();
+    }
+
+    @Test
+    void keepsTheLatestVersionWhenRevocationsArriveOutOfOrder() {
+        // When
+        revoke(1, 5, NOW);
+        revoke(1, 4, NOW - 60);
+
+        // Then
+        assertThat(underTest.isRevoked(1, 4)).isTrue();
+        assertThat(underTest.isRevoked(1, 5)).isFalse();
+    }
+
+    @Test
+    void revokesEveryTokenUntilLoaded() {
+        // Given
+        TokenRevocationList notLoaded = new TokenRevocationList(dataAccessService, LIFETIME, TICK, NOW);
+        when(dataAccessService.selectRevocationsSince(any()))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        // When
+        notLoaded.reload(NOW);
+
+        // Then
+        assertThat(notLoaded.isLoaded()).isFalse();
+        assertThat(notLoaded.isRevoked(1, 0)).isTrue();
+    }
+
+    @Test
+    void revokesEveryTokenWhenChangedCustomersCannotBeRead() {
+        // Given
+        when(dataAccessService.selectRevocations(List.of(1)))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        // When
+        underTest.onCustomerChange(CustomerChangeEvent.updated(1));
+
+        // Then
+        assertThat(underTest.isLoaded()).isFalse();
+        assertThat(underTest.isRevoked(2, 0)).isTrue();
+
+        // When
+        underTest.reload(NOW);
+
+        // Then
+        assertThat(underTest.isRevoked(2, 0)).isFalse();
+    }
+
+    @Test
+    void loadsRevocationsFromTheDatabase() {
+        // Given
+        revoke(1, 2, NOW);
+        when(dataAccessService.selectRevocationsSince(Instant.ofEpochSecond(NOW + 60 - LIFETIME.toSeconds())))
+                .thenReturn(Map.of(
+                        1, new TokenRevocation(1, NOW - 60),
+                        2, new TokenRevocation(4, NOW + 30)
+                ));
+
+        // When
+        underTest.reload(NOW + 60);
+
+        // Then
+        assertThat(underTest.isRevoked(1, 1)).isTrue();
+        assertThat(underTest.isRevoked(2, 3)).isTrue();
+        assertThat(underTest.isRevoked(2, 4)).isFalse();
+        assertThat(underTest.isRevoked(3, 0)).isFalse();
+    }
+
+    @Test
+    void reloadsOnResetInsteadOfRevokingEveryone() {
+        // Given
+        when(dataAccessService.selectRevocationsSince(any())).thenReturn(Map.of(
+                2, new TokenRevocation(1, Instant.now().getEpochSecond())
+        ));
+
+        // When
+        underTest.onCustomerChange(CustomerChangeEvent.reset());
+
+        // Then
+        assertThat(underTest.isRevoked(1, 0)).isFalse();
+        assertThat(underTest.isRevoked(2, 0)).isTrue();
+    }
+
+    @Test
+    void expiresRevocationsOnceEveryCoveredTokenExpired() {
+        // Given
+        revoke(1, 1, NOW);
+        revoke(2, 1, NOW);
+
+        // When
+        underTest.expire(NOW + LIFETIME.toSeconds() - 1);
+
+        // Then
+        assertThat(underTest.size()).isEqualTo(2);
+
+        // When
+        underTest.expire(NOW + LIFETIME.toSeconds() + TICK.toSeconds());
+
+        // Then
+        assertThat(underTest.size()).isZero();
+    }
+
+    @Test
+    void keepsCustomersRevokedAgainUntilTheLaterRevocationExpires() {
+        // Given
+        revoke(1, 1, NOW);
+        revoke(1, 2, NOW + 3 * TICK.toSeconds());
+
+        // When
+        underTest.expire(NOW + LIFETIME.toSeconds() + TICK.toSeconds());
+
+        // Then
+        assertThat(underTest.isRevoked(1, 1)).isTrue();
+
+        // When
+        underTest.expire(NOW + LIFETIME.toSeconds() + 4 * TICK.toSeconds());
+
+        // Then
+        assertThat(underTest.size()).isZero();
+    }
+
+    @Test
+    void expiresEverythingAfterAPauseLongerThanTheWheel() {
+        // Given
+        revoke(1, 1, NOW);
+
+        // When
+        underTest.expire(NOW + 5 * LIFETIME.toSeconds());
+
+        // Then
+        assertThat(underTest.size()).isZero();
+    }
+
+    @Test
+    void revokesChangedAndDeletedCustomers() {
+        // Given
+        long now = Instant.now().getEpochSecond();
+        when(dataAccessService.selectRevocations(List.of(2)))
+                .thenReturn(Map.of(2, new TokenRevocation(1, now)));
+        when(dataAccessService.selectRevocations(List.of(3)))
+                .thenReturn(Map.of(3, new TokenRevocation(DELETED, now)));
+
+        // When
+        underTest.onCustomerChange(CustomerChangeEvent.created(1));
+        underTest.onCustomerChange(CustomerChangeEvent.updated(2));
+        underTest.onCustomerChange(CustomerChangeEvent.deleted(List.of(3)));
+
+        // Then
+        assertThat(underTest.isRevoked(1, 0)).isFalse();
+        assertThat(underTest.isRevoked(2, 0)).isTrue();
+        assertThat(underTest.isRevoked(3, 0)).isTrue();
+    }
+
+    private void revoke(int customerId, long version, long revokedAt) {
+        when(dataAccessService.selectRevocations(List.of(customerId)))
+                .thenReturn(Map.of(customerId, new TokenRevocation(version, revokedAt)));
+        underTest.revoke(List.of(customerId));
+    }
+}